@@ -1,7 +1,13 @@
+import java.security.MessageDigest
+import java.util.zip.Deflater
+import java.util.zip.GZIPOutputStream
+
 plugins {
 	java
 	id("org.springframework.boot") version "3.5.7"
 	id("io.spring.dependency-management") version "1.1.7"
+	id("org.graalvm.buildtools.native") version "0.10.6"
+	id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "com.smlaurindo"
@@ -32,6 +38,7 @@ dependencies {
 	implementation("org.springframework.boot:spring-boot-starter-websocket")
 	implementation("org.flywaydb:flyway-core")
 	implementation("org.flywaydb:flyway-database-postgresql")
+	implementation("com.fasterxml.jackson.module:jackson-module-blackbird")
     implementation("org.springdoc:springdoc-openapi-starter-webmvc-ui:2.8.14")
 
 	runtimeOnly("org.postgresql:postgresql")
@@ -54,3 +61,134 @@ dependencies {
 tasks.withType<Test> {
 	useJUnitPlatform()
 }
+
+jmh {
+	profilers = listOf("gc")
+}
+
+graalvmNative {
+	binaries {
+		named("main") {
+			imageName = "realtime-polls"
+			// Lets the continuous recording (app.profiling) run in the native image too
+			buildArgs.add("--enable-monitoring=jfr")
+		}
+	}
+	metadataRepository {
+		enabled = true
+	}
+}
+
+val staticSource = layout.projectDirectory.dir("src/main/resources/static")
+val staticAssets = layout.buildDirectory.dir("generated/static-assets")
+
+// Fingerprints the scripts and stylesheets into static/assets, rewrites the references to them and
+// writes .gz (and .br, when the brotli CLI is installed) next to every text asset
+val buildStaticAssets by tasks.registering {
+	group = "build"
+	description = "Fingerprints and precompresses the frontend in src/main/resources/static."
+
+	inputs.dir(staticSource)
+	outputs.dir(staticAssets)
+
+	doLast {
+		val source = staticSource.asFile
+		val target = staticAssets.get().asFile.resolve("static")
+
+		target.deleteRecursively()
+		target.mkdirs()
+
+		val importPattern = Regex("""(\bfrom\s*|\bimport\s*)(["'])(\./[^"']+)\2""")
+		val referencePattern = Regex("""(src|href)="/?([^":]+\.(?:js|css))"""")
+		val fingerprinted = mutableMapOf<File, String>()
+
+		fun sha256(text: String) = MessageDigest.getInstance("SHA-256")
+			.digest(text.toByteArray())
+			.joinToString("") { "%02x".format(it) }
+
+		// Dependencies are hashed first, so a change in a module also renames every module importing it
+		fun fingerprint(file: File): String = fingerprinted.getOrPut(file) {
+			var text = file.readText()
+
+			if (file.extension == "js") {
+				text = importPattern.replace(text) { match ->
+					val (keyword, quote, specifier) = match.destructured
+					val hashedName = fingerprint(file.parentFile.resolve(specifier).normalize()).substringAfterLast('/')
+
+					"$keyword$quote${specifier.substringBeforeLast('/')}/$hashedName$quote"
+				}
+			}
+
+			val path = file.relativeTo(source).invariantSeparatorsPath
+			val hashedPath = "assets/${path.substringBeforeLast('.')}.${sha256(text).take(12)}.${file.extension}"
+
+			target.resolve(hashedPath).apply {
+				parentFile.mkdirs()
+				writeText(text)
+			}
+
+			hashedPath
+		}
+
+		source.walkTopDown()
+			.filter { it.isFile && it.extension in setOf("js", "css") }
+			.forEach { fingerprint(it) }
+
+		source.walkTopDown()
+			.filter { it.isFile && it.extension !in setOf("js", "css") }
+			.forEach { file ->
+				val output = target.resolve(file.relativeTo(source).path)
+				output.parentFile.mkdirs()
+
+				if (file.extension == "html") {
+					output.writeText(referencePattern.replace(file.readText()) { match ->
+						val (attribute, reference) = match.destructured
+						val referenced = source.resolve(reference)
+
+						if (referenced.isFile) "$attribute=\"/${fingerprint(referenced)}\"" else match.value
+					})
+				} else {
+					file.copyTo(output)
+				}
+			}
+
+		var brotliAvailable = true
+
+		target.walkTopDown()
+			.filter { it.isFile && it.extension in setOf("html", "js", "css", "yaml") }
+			.toList()
+			.forEach { file ->
+				file.inputStream().use { input ->
+					object : GZIPOutputStream(file.resolveSibling("${file.name}.gz").outputStream()) {
+						init {
+							def.setLevel(Deflater.BEST_COMPRESSION)
+						}
+					}.use { input.copyTo(it) }
+				}
+
+				if (brotliAvailable) {
+					brotliAvailable = try {
+						ProcessBuilder("brotli", "--best", "--force", "--output=${file.path}.br", file.path)
+							.inheritIO()
+							.start()
+							.waitFor() == 0
+					} catch (e: java.io.IOException) {
+						logger.warn("brotli not found, serving gzip only: ${e.message}")
+						false
+					}
+				}
+			}
+	}
+}
+
+sourceSets {
+	main {
+		resources {
+			exclude("static/**")
+		}
+	}
+}
+
+tasks.processResources {
+	from(buildStaticAssets)
+}
@@ -0,0 +1,117 @@
+package com.smlaurindo.realtime_polls.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.smlaurindo.realtime_polls.domain.PollStatus;
+import com.smlaurindo.realtime_polls.dto.message.VoteUpdateMessage;
+import com.smlaurindo.realtime_polls.dto.message.WebSocketMessage;
+import com.smlaurindo.realtime_polls.dto.response.GetPollResponse;
+import com.smlaurindo.realtime_polls.service.PollTallies;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Run with ./gradlew jmh; the gc profiler reports gc.alloc.rate.norm, the bytes allocated per operation
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VoteUpdateSerializationBenchmark {
+
+    @Param({"plain", "blackbird"})
+    public String accessors;
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter messageWriter;
+    private ObjectWriter responseWriter;
+
+    private WebSocketMessage<VoteUpdateMessage> message;
+    private GetPollResponse response;
+    private byte[] eventField;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        if (accessors.equals("blackbird")) {
+            objectMapper.registerModule(new BlackbirdModule());
+        }
+
+        messageWriter = objectMapper.writerFor(WebSocketMessage.class);
+        eventField = "\nevent: VOTE_UPDATED\ndata: ".getBytes(StandardCharsets.UTF_8);
+        responseWriter = objectMapper.writerFor(GetPollResponse.class);
+
+        Map<String, Integer> votesByOption = new LinkedHashMap<>();
+        for (int i = 0; i < 5; i++) {
+            votesByOption.put(UUID.randomUUID().toString(), 1000 * (i + 1));
+        }
+
+        var summary = PollTallies.summaryOf(votesByOption);
+        var optionId = votesByOption.keySet().iterator().next();
+        var pollId = UUID.randomUUID().toString();
+
+        message = new WebSocketMessage<>(
+                "VOTE_UPDATED",
+                pollId,
+                new VoteUpdateMessage(optionId, "Option 1", votesByOption.get(optionId), summary),
+                Instant.now().toString()
+        );
+
+        response = new GetPollResponse(
+                pollId,
+                "Which framework do you use the most?",
+                PollStatus.IN_PROGRESS,
+                Instant.now().toString(),
+                Instant.now().plusSeconds(3600).toString(),
+                votesByOption.entrySet().stream()
+                        .map(entry -> new GetPollResponse.OptionResponse(entry.getKey(), "Option", entry.getValue()))
+                        .toList(),
+                summary
+        );
+    }
+
+    // The broadcast path before pre-built writers: a String, then a second copy per SSE frame
+    @Benchmark
+    public byte[] voteUpdateViaString() throws Exception {
+        String json = objectMapper.writeValueAsString(message);
+        return ("id: 1\nevent: " + message.type() + "\ndata: " + json + "\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Both build the same SSE frame; this one the way PollEventStreamHandler.sendVoteUpdate does
+    @Benchmark
+    public byte[] voteUpdateViaWriter() throws Exception {
+        byte[] json = messageWriter.writeValueAsBytes(message);
+        byte[] idField = "id: 1".getBytes(StandardCharsets.US_ASCII);
+
+        byte[] frame = new byte[idField.length + eventField.length + json.length + 2];
+        System.arraycopy(idField, 0, frame, 0, idField.length);
+        System.arraycopy(eventField, 0, frame, idField.length, eventField.length);
+        System.arraycopy(json, 0, frame, idField.length + eventField.length, json.length);
+        frame[frame.length - 2] = '\n';
+        frame[frame.length - 1] = '\n';
+
+        return frame;
+    }
+
+    @Benchmark
+    public byte[] pollResponseViaMapper() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] pollResponseViaWriter() throws Exception {
+        return responseWriter.writeValueAsBytes(response);
+    }
+}
@@ -2,8 +2,10 @@ package com.smlaurindo.realtime_polls;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class RealtimePollsApplication {
 
 	static void main(String[] args) {
@@ -1,27 +1,34 @@
 package com.smlaurindo.realtime_polls.config;
 
 import org.slf4j.MDC;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.Executor;
 
 @Configuration
 @EnableAsync
-public class AsyncConfig implements AsyncConfigurer {
+public class AsyncConfig implements AsyncConfigurer, DisposableBean {
 
-    @Override
-    public Executor getAsyncExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    public AsyncConfig(@Value("${app.shutdown.executor-await-termination:10s}") Duration awaitTermination) {
         executor.setVirtualThreads(true);
         executor.setCorePoolSize(100);
         executor.setMaxPoolSize(10000);
         executor.setQueueCapacity(100000);
         executor.setThreadNamePrefix("async-event-");
 
+        // Queued broadcasts still run on shutdown instead of being dropped with the executor
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationMillis(awaitTermination.toMillis());
+
         executor.setTaskDecorator(runnable -> {
             Map<String, String> context = MDC.getCopyOfContextMap();
 
@@ -38,7 +45,21 @@ public class AsyncConfig implements AsyncConfigurer {
         });
 
         executor.initialize();
+    }
+
+    @Override
+    public Executor getAsyncExecutor() {
         return executor;
     }
-}
 
+    public int pendingTasks() {
+        var pool = executor.getThreadPoolExecutor();
+        return pool.getQueue().size() + pool.getActiveCount();
+    }
+
+    // Runs after every lifecycle phase, so broadcasts from requests finished during the web server drain are kept
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
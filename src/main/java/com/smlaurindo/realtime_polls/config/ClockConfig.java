@@ -0,0 +1,77 @@
+package com.smlaurindo.realtime_polls.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.locks.LockSupport;
+
+@Configuration
+public class ClockConfig {
+
+    // Poll status is derived from this clock. The default tick-ms 0 reads the system clock on every call;
+    // a coarse clock only pays off when clock reads show up in a profile, as its thread wakes up every tick
+    @Bean
+    public Clock clock(@Value("${app.clock.tick-ms:0}") long tickMs) {
+        return tickMs > 0 ? new CoarseClock(new Ticker(Duration.ofMillis(tickMs)), ZoneOffset.UTC) : Clock.systemUTC();
+    }
+
+    // Reads a time refreshed once per tick, so a hot path pays a volatile read instead of a clock call
+    static final class CoarseClock extends Clock implements AutoCloseable {
+
+        private final Ticker ticker;
+        private final ZoneId zone;
+
+        private CoarseClock(Ticker ticker, ZoneId zone) {
+            this.ticker = ticker;
+            this.zone = zone;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return zone.equals(this.zone) ? this : new CoarseClock(ticker, zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return ticker.now;
+        }
+
+        @Override
+        public long millis() {
+            return ticker.now.toEpochMilli();
+        }
+
+        @Override
+        public void close() {
+            ticker.thread.interrupt();
+        }
+    }
+
+    private static final class Ticker {
+
+        private final Thread thread;
+        private volatile Instant now = Instant.now();
+
+        private Ticker(Duration tick) {
+            long tickNanos = tick.toNanos();
+
+            this.thread = Thread.ofPlatform().daemon().name("coarse-clock").start(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    LockSupport.parkNanos(tickNanos);
+                    now = Instant.now();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.smlaurindo.realtime_polls.config;
+
+import com.smlaurindo.realtime_polls.datasource.EndpointMetricsTrackerFactory;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class ConnectionPoolConfig {
+
+    // Static, so post-processing the data source does not pull this configuration in early
+    @Bean
+    public static BeanPostProcessor connectionPoolCustomizer(
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${app.datasource.fail-fast.enabled:false}") boolean failFast,
+            @Value("${app.datasource.fail-fast.acquire-timeout:500ms}") Duration acquireTimeout
+    ) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    // Set before Spring Boot binds its own tracker, which it skips when one is present
+                    if (dataSource.getMetricsTrackerFactory() == null && dataSource.getMetricRegistry() == null) {
+                        dataSource.setMetricsTrackerFactory(new EndpointMetricsTrackerFactory(meterRegistry::getObject));
+                    }
+
+                    // A request waiting longer than this for a connection fails with 503 instead of queueing
+                    if (failFast) {
+                        dataSource.setConnectionTimeout(acquireTimeout.toMillis());
+                    }
+                }
+
+                return bean;
+            }
+        };
+    }
+}
@@ -3,15 +3,24 @@ package com.smlaurindo.realtime_polls.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.NativeDetector;
 
 @Configuration
 public class JacksonConfig {
     @Bean
     public ObjectMapper objectMapper() {
-        return new ObjectMapper()
+        var objectMapper = new ObjectMapper()
                 .registerModule(new JavaTimeModule())
                 .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        // Replaces reflective accessors with generated lambdas; a native image has no runtime class generation
+        if (!NativeDetector.inNativeImage()) {
+            objectMapper.registerModule(new BlackbirdModule());
+        }
+
+        return objectMapper;
     }
 }
@@ -0,0 +1,44 @@
+package com.smlaurindo.realtime_polls.config;
+
+import com.smlaurindo.realtime_polls.dto.error.ErrorResponse;
+import com.smlaurindo.realtime_polls.dto.message.ClientMessage;
+import com.smlaurindo.realtime_polls.dto.message.ErrorMessage;
+import com.smlaurindo.realtime_polls.dto.message.SubscriptionMessage;
+import com.smlaurindo.realtime_polls.dto.message.VoteAckMessage;
+import com.smlaurindo.realtime_polls.dto.message.VoteUpdateMessage;
+import com.smlaurindo.realtime_polls.dto.message.WebSocketMessage;
+import com.smlaurindo.realtime_polls.dto.request.CreatePollRequest;
+import com.smlaurindo.realtime_polls.dto.response.GetPollResponse;
+import com.smlaurindo.realtime_polls.dto.validation.EndDateAfterStartDateValidator;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+// Controller signatures are registered by Spring AOT; these types are read or written by ObjectMapper directly
+@Configuration
+@RegisterReflectionForBinding({
+        ClientMessage.class,
+        WebSocketMessage.class,
+        VoteUpdateMessage.class,
+        VoteAckMessage.class,
+        SubscriptionMessage.class,
+        ErrorMessage.class,
+        ErrorResponse.class,
+        CreatePollRequest.class,
+        GetPollResponse.class,
+})
+@ImportRuntimeHints(NativeHintsConfig.ValidationHints.class)
+public class NativeHintsConfig {
+
+    static class ValidationHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Hibernate Validator instantiates constraint validators reflectively
+            hints.reflection().registerType(EndDateAfterStartDateValidator.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.smlaurindo.realtime_polls.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "app.rate-limit")
+public record RateLimitProperties(
+        boolean enabled,
+        @DefaultValue("5m") Duration idleExpiry,
+        @DefaultValue("100000") int maxKeys,
+        Map<String, EndpointLimit> endpoints
+) {
+    public record EndpointLimit(
+            Limit perClient,
+            Limit perPoll
+    ) {}
+
+    public record Limit(
+            double rate,
+            int burst
+    ) {}
+}
@@ -0,0 +1,86 @@
+package com.smlaurindo.realtime_polls.config;
+
+import com.smlaurindo.realtime_polls.datasource.EndpointMetricsTrackerFactory;
+import com.smlaurindo.realtime_polls.datasource.PrimaryStickiness;
+import com.smlaurindo.realtime_polls.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replicas[0]", name = "url")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(
+            DataSourceProperties properties,
+            ObjectProvider<JdbcConnectionDetails> connectionDetails
+    ) {
+        var details = connectionDetails.getIfAvailable();
+
+        if (details == null) {
+            return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        }
+
+        return DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(details.getJdbcUrl())
+                .username(details.getUsername())
+                .password(details.getPassword())
+                .driverClassName(details.getDriverClassName())
+                .build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(
+            ReadReplicaProperties properties,
+            HikariDataSource primaryDataSource,
+            PrimaryStickiness primaryStickiness,
+            MeterRegistry meterRegistry
+    ) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+
+        for (int i = 0; i < properties.replicas().size(); i++) {
+            var replica = properties.replicas().get(i);
+            var dataSource = new HikariDataSource();
+
+            dataSource.setPoolName("RealtimePollsReplica-" + i);
+            dataSource.setJdbcUrl(replica.url());
+            dataSource.setUsername(replica.username() != null ? replica.username() : primaryDataSource.getUsername());
+            dataSource.setPassword(replica.password() != null ? replica.password() : primaryDataSource.getPassword());
+            dataSource.setReadOnly(true);
+            dataSource.setMaximumPoolSize(properties.replicaPoolSize());
+            // A dead replica must fail fast so reads fail over instead of waiting on the pool
+            dataSource.setConnectionTimeout(properties.replicaConnectionTimeout().toMillis());
+            dataSource.setInitializationFailTimeout(-1);
+            dataSource.setMetricsTrackerFactory(new EndpointMetricsTrackerFactory(() -> meterRegistry));
+
+            replicas.add(dataSource);
+        }
+
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, primaryStickiness, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaDataSource) {
+        // Connections are fetched lazily, so the read-only flag of the transaction is known when picking the target
+        var dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+}
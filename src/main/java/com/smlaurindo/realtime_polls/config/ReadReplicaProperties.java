@@ -0,0 +1,21 @@
+package com.smlaurindo.realtime_polls.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "app.datasource")
+public record ReadReplicaProperties(
+        List<Replica> replicas,
+        @DefaultValue("2s") Duration primaryStickiness,
+        @DefaultValue("10") int replicaPoolSize,
+        @DefaultValue("1s") Duration replicaConnectionTimeout
+) {
+    public record Replica(
+            String url,
+            String username,
+            String password
+    ) {}
+}
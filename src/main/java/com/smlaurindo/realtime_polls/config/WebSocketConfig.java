@@ -1,5 +1,6 @@
 package com.smlaurindo.realtime_polls.config;
 
+import com.smlaurindo.realtime_polls.handler.AdmissionHandshakeInterceptor;
 import com.smlaurindo.realtime_polls.handler.PollWebSocketHandler;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,13 +17,15 @@ import java.util.List;
 public class WebSocketConfig implements WebSocketConfigurer {
 
     private final PollWebSocketHandler pollWebSocketHandler;
+    private final AdmissionHandshakeInterceptor admissionHandshakeInterceptor;
 
     @Value("#{'${app.cors.allowed.origins}'.split(',')}")
     private List<String> allowedOrigins;
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        registry.addHandler(pollWebSocketHandler, "/ws/polls/{pollId}")
+        registry.addHandler(pollWebSocketHandler, "/ws/polls/{pollId}", "/ws/polls")
+                .addInterceptors(admissionHandshakeInterceptor)
                 .setAllowedOrigins(allowedOrigins.toArray(new String[0]));
     }
 }
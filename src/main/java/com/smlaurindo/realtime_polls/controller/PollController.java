@@ -1,25 +1,45 @@
 package com.smlaurindo.realtime_polls.controller;
 
+import com.smlaurindo.realtime_polls.domain.HistoryResolution;
 import com.smlaurindo.realtime_polls.domain.PollStatus;
 import com.smlaurindo.realtime_polls.dto.request.AddPollOptionRequest;
 import com.smlaurindo.realtime_polls.dto.request.CreatePollRequest;
 import com.smlaurindo.realtime_polls.dto.request.EditPollRequest;
 import com.smlaurindo.realtime_polls.dto.response.*;
+import com.smlaurindo.realtime_polls.handler.PollEventStreamHandler;
+import com.smlaurindo.realtime_polls.service.PollExportService;
+import com.smlaurindo.realtime_polls.service.PollImportService;
+import com.smlaurindo.realtime_polls.service.PollResponseCache;
 import com.smlaurindo.realtime_polls.service.PollService;
+import com.smlaurindo.realtime_polls.service.VoteHistoryService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.Locale;
+
 @RestController
 @RequiredArgsConstructor
 public class PollController {
 
     private final PollService pollService;
+    private final PollImportService pollImportService;
+    private final PollExportService pollExportService;
+    private final PollEventStreamHandler pollEventStreamHandler;
+    private final VoteHistoryService voteHistoryService;
+    private final PollResponseCache pollResponseCache;
 
     @PostMapping("/polls")
     public ResponseEntity<CreatePollResponse> createPoll(
@@ -32,6 +52,13 @@ public class PollController {
                 .body(poll);
     }
 
+    @PostMapping(value = "/polls/import", consumes = {"application/x-ndjson", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<ImportPollsResponse> importPolls(HttpServletRequest request) throws IOException {
+        var result = pollImportService.importPolls(request.getInputStream());
+
+        return ResponseEntity.ok(result);
+    }
+
     @GetMapping("/polls")
     public ResponseEntity<PageResponse<ListPollsResponse>> listPolls(
             @RequestParam(required = false) PollStatus status,
@@ -43,10 +70,59 @@ public class PollController {
         return ResponseEntity.ok(polls);
     }
 
+    @GetMapping(value = "/polls/export", produces = "application/x-ndjson")
+    public void exportPolls(
+            @RequestParam(required = false) PollStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            HttpServletResponse response
+    ) throws IOException {
+        response.setContentType("application/x-ndjson");
+
+        pollExportService.exportPolls(status, from, to, response.getOutputStream());
+    }
+
     @GetMapping("/polls/{pollId}")
-    public ResponseEntity<GetPollResponse> getPoll(@PathVariable("pollId") String pollId) {
+    public ResponseEntity<byte[]> getPoll(
+            @PathVariable("pollId") String pollId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        var body = pollResponseCache.get(pollId, () -> pollService.getPoll(pollId));
+
+        var response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        // Already serialized, so the bytes are written as they are instead of going through Jackson again
+        if (body.gzip() != null && acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        }
+
+        return response.body(body.json());
+    }
+
+    @GetMapping(value = "/polls/{pollId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public void streamPollEvents(
+            @PathVariable("pollId") String pollId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            HttpServletResponse response
+    ) throws IOException {
+        // Fails with 404 before the stream is opened
         var poll = pollService.getPoll(pollId);
-        return ResponseEntity.ok(poll);
+
+        pollEventStreamHandler.stream(poll.id(), lastEventId, response);
+    }
+
+    @GetMapping("/polls/{pollId}/history")
+    public ResponseEntity<VoteHistoryResponse> getPollHistory(
+            @PathVariable("pollId") String pollId,
+            @RequestParam(required = false) HistoryResolution resolution,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to
+    ) {
+        var history = voteHistoryService.getHistory(pollId, resolution, from, to);
+
+        return ResponseEntity.ok(history);
     }
 
     @PutMapping("/polls/{pollId}")
@@ -72,9 +148,10 @@ public class PollController {
     @PatchMapping("/polls/{pollId}/options/{optionId}/vote")
     public ResponseEntity<Void> votePollOption(
             @PathVariable("pollId") String pollId,
-            @PathVariable("optionId") String optionId
+            @PathVariable("optionId") String optionId,
+            @RequestHeader(value = "X-Voter-Token", required = false) String voterToken
     ) {
-        pollService.votePollOption(pollId, optionId);
+        pollService.votePollOption(pollId, optionId, voterToken);
 
         return ResponseEntity.ok().build();
     }
@@ -95,4 +172,37 @@ public class PollController {
 
         return ResponseEntity.noContent().build();
     }
+
+    // An explicit gzip entry wins over "*", and a weight of 0 refuses the coding
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+
+        boolean wildcard = false;
+
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parameters = entry.split(";");
+            String coding = parameters[0].trim().toLowerCase(Locale.ROOT);
+
+            if (coding.equals("gzip") || coding.equals("x-gzip")) return weight(parameters) > 0;
+            if (coding.equals("*")) wildcard = weight(parameters) > 0;
+        }
+
+        return wildcard;
+    }
+
+    private static double weight(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+
+            if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+
+        return 1;
+    }
 }
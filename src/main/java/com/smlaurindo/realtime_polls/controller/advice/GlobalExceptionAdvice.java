@@ -1,10 +1,16 @@
 package com.smlaurindo.realtime_polls.controller.advice;
 
+import com.smlaurindo.realtime_polls.datasource.ConnectionFailures;
 import com.smlaurindo.realtime_polls.dto.error.ErrorResponse;
 import com.smlaurindo.realtime_polls.dto.error.ValidationErrorResponse;
 import com.smlaurindo.realtime_polls.service.exception.*;
+import org.hibernate.exception.JDBCConnectionException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -46,6 +52,11 @@ public class GlobalExceptionAdvice {
             Exception exception,
             WebRequest request
     ) {
+        // Wrapped differently depending on where the connection was first needed, e.g. at commit
+        if (ConnectionFailures.isPoolTimeout(exception)) {
+            return handleConnectionUnavailable(exception, request);
+        }
+
         ErrorResponse errorResponse = new ErrorResponse(
                 request.getDescription(false).replace("uri=", ""),
                 HttpStatus.INTERNAL_SERVER_ERROR.value(),
@@ -149,4 +160,73 @@ public class GlobalExceptionAdvice {
                 .status(HttpStatus.BAD_REQUEST)
                 .body(errorResponse);
     }
-}
\ No newline at end of file
+
+    @ExceptionHandler(DuplicateVoteException.class)
+    public ResponseEntity<ErrorResponse> handleDuplicateVoteException(
+            DuplicateVoteException exception,
+            WebRequest request
+    ) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                request.getDescription(false).replace("uri=", ""),
+                HttpStatus.CONFLICT.value(),
+                "Duplicate Vote",
+                exception.getMessage(),
+                Instant.now()
+        );
+
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(errorResponse);
+    }
+
+    @ExceptionHandler(VoterTokenRequiredException.class)
+    public ResponseEntity<ErrorResponse> handleVoterTokenRequiredException(
+            VoterTokenRequiredException exception,
+            WebRequest request
+    ) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                request.getDescription(false).replace("uri=", ""),
+                HttpStatus.BAD_REQUEST.value(),
+                "Voter Token Required",
+                exception.getMessage(),
+                Instant.now()
+        );
+
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(errorResponse);
+    }
+
+    // Behind the lazy connection proxy of the read replicas, the connection is only fetched by the first statement
+    @ExceptionHandler({JDBCConnectionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<ErrorResponse> handleResourceFailure(
+            Exception exception,
+            WebRequest request
+    ) {
+        if (exception instanceof CannotGetJdbcConnectionException || ConnectionFailures.isPoolTimeout(exception)) {
+            return handleConnectionUnavailable(exception, request);
+        }
+
+        return handleGlobalException(exception, request);
+    }
+
+    // Raised when no pool connection became free within the acquire timeout
+    @ExceptionHandler({CannotCreateTransactionException.class, CannotGetJdbcConnectionException.class})
+    public ResponseEntity<ErrorResponse> handleConnectionUnavailable(
+            Exception exception,
+            WebRequest request
+    ) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                request.getDescription(false).replace("uri=", ""),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Unavailable",
+                "The database is busy. Try again later.",
+                Instant.now()
+        );
+
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+}
@@ -0,0 +1,79 @@
+package com.smlaurindo.realtime_polls.controller.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smlaurindo.realtime_polls.datasource.ConnectionFailures;
+import com.smlaurindo.realtime_polls.dto.error.ErrorResponse;
+import com.smlaurindo.realtime_polls.ratelimit.AdaptiveConcurrencyLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+
+@Order(5)
+@Component
+@RequiredArgsConstructor
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final ObjectMapper objectMapper;
+
+    // Event streams stay open for minutes and bulk import and export run for seconds; either would skew the latency samples
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = RequestPaths.of(request);
+
+        return !concurrencyLimiter.isEnabled()
+                || !path.startsWith("/polls")
+                || path.endsWith("/events")
+                || path.equals("/polls/import")
+                || path.equals("/polls/export");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        if (!concurrencyLimiter.tryAcquire()) {
+            ErrorResponse errorResponse = new ErrorResponse(
+                    request.getRequestURI(),
+                    HttpStatus.SERVICE_UNAVAILABLE.value(),
+                    "Service Unavailable",
+                    "Too many requests in progress. Try again later.",
+                    Instant.now()
+            );
+
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), errorResponse);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean poolTimeout = false;
+
+        try {
+            filterChain.doFilter(request, response);
+        } catch (ServletException | IOException | RuntimeException e) {
+            poolTimeout = ConnectionFailures.isPoolTimeout(e);
+            throw e;
+        } finally {
+            // A 503 from the handler means a connection could not be had in time; one not handled there is checked here
+            boolean overloaded = poolTimeout || response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value();
+            concurrencyLimiter.release(System.nanoTime() - start, overloaded);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.smlaurindo.realtime_polls.controller.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smlaurindo.realtime_polls.dto.error.ErrorResponse;
+import com.smlaurindo.realtime_polls.idempotency.IdempotencyStore;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+// Ahead of the concurrency limit, so a replayed response never takes a slot meant for real work
+@Order(4)
+@Component
+@RequiredArgsConstructor
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !idempotencyStore.isEnabled()
+                || request.getHeader(IDEMPOTENCY_KEY) == null
+                || !(isCreate(request) || isVote(request));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY);
+
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            reject(request, response, HttpStatus.BAD_REQUEST, "Bad Request",
+                    "Idempotency-Key must be between 1 and %d characters.".formatted(MAX_KEY_LENGTH));
+            return;
+        }
+
+        // Read up front, so a retry with the same key but another body is told apart before anything runs
+        byte[] body = request.getInputStream().readAllBytes();
+        String voterToken = request.getHeader("X-Voter-Token");
+
+        // Scoped to the client as well, so two clients that pick the same key never get each other's response
+        String client = voterToken != null && !voterToken.isBlank() ? "voter:" + voterToken : "address:" + request.getRemoteAddr();
+
+        var claim = idempotencyStore.claim(
+                request.getMethod() + " " + RequestPaths.of(request) + " " + client,
+                idempotencyKey,
+                isCreate(request),
+                body,
+                voterToken != null ? voterToken.getBytes(StandardCharsets.UTF_8) : new byte[0]
+        );
+
+        var cachedRequest = new CachedBodyRequest(request, body);
+
+        switch (claim.outcome()) {
+            case REPLAYED -> replay(response, claim.response());
+            case IN_PROGRESS -> {
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                reject(request, response, HttpStatus.CONFLICT, "Conflict",
+                        "A request with this Idempotency-Key is still in progress.");
+            }
+            case MISMATCH -> reject(request, response, HttpStatus.UNPROCESSABLE_ENTITY, "Unprocessable Entity",
+                    "Idempotency-Key was already used for a different request.");
+            case UNTRACKED -> filterChain.doFilter(cachedRequest, response);
+            case ACQUIRED -> {
+                var cachingResponse = new ContentCachingResponseWrapper(response);
+                boolean completed = false;
+
+                try {
+                    filterChain.doFilter(cachedRequest, cachingResponse);
+
+                    idempotencyStore.complete(claim, cachingResponse.getStatus(),
+                            cachingResponse.getContentType(), cachingResponse.getContentAsByteArray());
+                    completed = true;
+                } finally {
+                    // Lets a retry run again when this attempt failed without a response
+                    if (!completed) {
+                        idempotencyStore.release(claim);
+                    }
+
+                    cachingResponse.copyBodyToResponse();
+                }
+            }
+        }
+    }
+
+    private void replay(HttpServletResponse response, IdempotencyStore.StoredResponse stored) throws IOException {
+        response.setStatus(stored.status());
+        response.setHeader(IDEMPOTENT_REPLAYED, "true");
+
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private void reject(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            HttpStatus status,
+            String title,
+            String message
+    ) throws IOException {
+        ErrorResponse errorResponse = new ErrorResponse(
+                request.getRequestURI(),
+                status.value(),
+                title,
+                message,
+                Instant.now()
+        );
+
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+
+    private boolean isCreate(HttpServletRequest request) {
+        return "POST".equals(request.getMethod()) && "/polls".equals(RequestPaths.of(request));
+    }
+
+    private boolean isVote(HttpServletRequest request) {
+        String path = RequestPaths.of(request);
+        return "PATCH".equals(request.getMethod()) && path.startsWith("/polls/") && path.endsWith("/vote");
+    }
+
+    // The body was already read to fingerprint the request, so the handler reads this copy
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            var input = new ByteArrayInputStream(body);
+
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("The body is already buffered");
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
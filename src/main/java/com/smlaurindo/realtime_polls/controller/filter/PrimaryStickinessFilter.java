@@ -0,0 +1,76 @@
+package com.smlaurindo.realtime_polls.controller.filter;
+
+import com.smlaurindo.realtime_polls.datasource.PrimaryStickiness;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.UUID;
+
+@Order(3)
+@Component
+@ConditionalOnProperty(prefix = "app.datasource.replicas[0]", name = "url")
+@RequiredArgsConstructor
+public class PrimaryStickinessFilter extends OncePerRequestFilter {
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    private static final String VOTER_TOKEN = "X-Voter-Token";
+
+    private final PrimaryStickiness primaryStickiness;
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        boolean write = !READ_METHODS.contains(request.getMethod());
+        String clientId = clientId(request);
+
+        // A client without a voter token gets a cookie on its first write, so its next reads can be told apart
+        if (write && clientId == null && isBlank(request.getHeader(VOTER_TOKEN))) {
+            clientId = UUID.randomUUID().toString();
+
+            response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(PrimaryStickiness.CLIENT_COOKIE, clientId)
+                    .path("/")
+                    .httpOnly(true)
+                    .sameSite("Lax")
+                    .build()
+                    .toString());
+        }
+
+        primaryStickiness.bind(PrimaryStickiness.clientKey(request.getHeader(VOTER_TOKEN), clientId));
+
+        // Recorded before the write runs, so a read sent right after the response is already sticky
+        if (write) {
+            primaryStickiness.recordWrite();
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            primaryStickiness.clear();
+        }
+    }
+
+    private static String clientId(HttpServletRequest request) {
+        var cookie = WebUtils.getCookie(request, PrimaryStickiness.CLIENT_COOKIE);
+        return cookie != null && !cookie.getValue().isBlank() ? cookie.getValue() : null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,96 @@
+package com.smlaurindo.realtime_polls.controller.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smlaurindo.realtime_polls.dto.error.ErrorResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+
+// The profiling endpoint exposes stack traces and event data, so it needs the token even when exposed
+@Order(6)
+@Component
+public class ProfilingAccessFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    private final ObjectMapper objectMapper;
+    private final String path;
+    private final byte[] token;
+
+    public ProfilingAccessFilter(
+            ObjectMapper objectMapper,
+            @Value("${management.endpoints.web.base-path:/actuator}") String basePath,
+            @Value("${app.profiling.token:}") String token
+    ) {
+        this.objectMapper = objectMapper;
+        this.path = basePath + "/profiling";
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String routed = RequestPaths.of(request);
+        return !routed.equals(path) && !routed.startsWith(path + "/");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        // Without a configured token the endpoint is not reachable at all
+        if (token.length == 0) {
+            reject(request, response, HttpStatus.NOT_FOUND, "Resource Not Found", "No profiling endpoint is available.");
+            return;
+        }
+
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        byte[] presented = authorization != null && authorization.startsWith(BEARER)
+                ? authorization.substring(BEARER.length()).getBytes(StandardCharsets.UTF_8)
+                : new byte[0];
+
+        // Constant time, so the token cannot be guessed one byte at a time
+        if (!MessageDigest.isEqual(token, presented)) {
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+            reject(request, response, HttpStatus.UNAUTHORIZED, "Unauthorized", "A valid profiling token is required.");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private void reject(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            HttpStatus status,
+            String title,
+            String message
+    ) throws IOException {
+        ErrorResponse errorResponse = new ErrorResponse(
+                request.getRequestURI(),
+                status.value(),
+                title,
+                message,
+                Instant.now()
+        );
+
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+}
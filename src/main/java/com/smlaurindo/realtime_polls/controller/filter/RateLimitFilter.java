@@ -0,0 +1,110 @@
+package com.smlaurindo.realtime_polls.controller.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smlaurindo.realtime_polls.dto.error.ErrorResponse;
+import com.smlaurindo.realtime_polls.ratelimit.RateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.UUID;
+
+@Order(0)
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String VOTER_TOKEN = "X-Voter-Token";
+
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return resolveEndpoint(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        String endpoint = resolveEndpoint(request);
+        String pollId = extractPollId(RequestPaths.of(request), endpoint);
+
+        String clientKey = RateLimiter.clientKey(request.getHeader(VOTER_TOKEN), request.getRemoteAddr());
+        long retryAfterNanos = rateLimiter.acquireOrRetryAfterNanos(endpoint, clientKey, pollId);
+
+        if (retryAfterNanos == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                request.getRequestURI(),
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                "Too Many Requests",
+                "Rate limit exceeded. Try again later.",
+                Instant.now()
+        );
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        // Retry-After is in whole seconds, rounded up so a client retrying on time is not rejected again
+        long retryAfterSeconds = Math.max(1, (retryAfterNanos + 999_999_999L) / 1_000_000_000L);
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+
+    private String resolveEndpoint(HttpServletRequest request) {
+        String path = RequestPaths.of(request);
+        String method = request.getMethod();
+
+        if ("PATCH".equals(method) && path.startsWith("/polls/") && path.endsWith("/vote")) {
+            return RateLimiter.VOTE;
+        }
+
+        if ("GET".equals(method) && path.startsWith("/ws/")) {
+            return RateLimiter.WEBSOCKET_CONNECT;
+        }
+
+        return null;
+    }
+
+    private String extractPollId(String path, String endpoint) {
+        // /polls/{pollId}/options/{optionId}/vote and /ws/polls/{pollId}
+        String[] segments = path.split("/");
+
+        String pollId = switch (endpoint) {
+            case RateLimiter.VOTE -> segments.length > 2 ? segments[2] : null;
+            case RateLimiter.WEBSOCKET_CONNECT -> segments.length > 3 ? segments[3] : null;
+            default -> null;
+        };
+
+        return canonicalPollId(pollId);
+    }
+
+    // UUID.fromString accepts upper case and other spellings, which would each get a bucket of their own
+    private static String canonicalPollId(String pollId) {
+        if (pollId == null) return null;
+
+        try {
+            return UUID.fromString(pollId).toString();
+        } catch (IllegalArgumentException e) {
+            // Rejected by the handler without touching a poll, so only the client limit applies
+            return null;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.smlaurindo.realtime_polls.controller.filter;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+final class RequestPaths {
+
+    private RequestPaths() {
+    }
+
+    // Decoded and without ";" path parameters, which is the path the handler mappings route on;
+    // the raw request URI is neither, so matching on it lets "/vote;x" or "%70olls" slip past a filter
+    static String of(HttpServletRequest request) {
+        String servletPath = request.getServletPath();
+        String pathInfo = request.getPathInfo();
+
+        return pathInfo != null ? servletPath + pathInfo : servletPath;
+    }
+}
@@ -0,0 +1,18 @@
+package com.smlaurindo.realtime_polls.datasource;
+
+import java.sql.SQLTransientConnectionException;
+
+public final class ConnectionFailures {
+
+    private ConnectionFailures() {
+    }
+
+    // Hikari fails with this once the acquire timeout passes; JPA and the lazy proxy wrap it in their own exceptions
+    public static boolean isPoolTimeout(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientConnectionException) return true;
+        }
+
+        return false;
+    }
+}
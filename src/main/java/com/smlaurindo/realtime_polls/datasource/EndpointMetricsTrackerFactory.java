@@ -0,0 +1,83 @@
+package com.smlaurindo.realtime_polls.datasource;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Keeps Hikari's own pool metrics and adds connection wait and hold times per endpoint. Hikari
+ * reports both on the thread that borrows and returns the connection, which is the request thread.
+ */
+public class EndpointMetricsTrackerFactory implements MetricsTrackerFactory {
+
+    private static final String NO_ENDPOINT = "none";
+
+    private final Supplier<MeterRegistry> meterRegistry;
+
+    public EndpointMetricsTrackerFactory(Supplier<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        var registry = meterRegistry.get();
+        var poolTracker = new MicrometerMetricsTrackerFactory(registry).create(poolName, poolStats);
+
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                poolTracker.recordConnectionCreatedMillis(connectionCreatedMillis);
+            }
+
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                poolTracker.recordConnectionAcquiredNanos(elapsedAcquiredNanos);
+                timer(registry, "polls.datasource.connection.acquire", poolName).record(elapsedAcquiredNanos, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                poolTracker.recordConnectionUsageMillis(elapsedBorrowedMillis);
+                timer(registry, "polls.datasource.connection.hold", poolName).record(elapsedBorrowedMillis, TimeUnit.MILLISECONDS);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                poolTracker.recordConnectionTimeout();
+                registry.counter("polls.datasource.connection.timeouts", "pool", poolName, "endpoint", endpoint()).increment();
+            }
+
+            @Override
+            public void close() {
+                poolTracker.close();
+            }
+        };
+    }
+
+    private static Timer timer(MeterRegistry registry, String name, String poolName) {
+        return registry.timer(name, "pool", poolName, "endpoint", endpoint());
+    }
+
+    // The matched route rather than the URI, so the tag stays bounded by the number of mappings
+    private static String endpoint() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return NO_ENDPOINT;
+        }
+
+        var pattern = attributes.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+
+        if (pattern == null) return NO_ENDPOINT;
+
+        return attributes.getRequest().getMethod() + " " + pattern;
+    }
+}
@@ -0,0 +1,66 @@
+package com.smlaurindo.realtime_polls.datasource;
+
+import com.smlaurindo.realtime_polls.config.ReadReplicaProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@ConditionalOnProperty(prefix = "app.datasource.replicas[0]", name = "url")
+public class PrimaryStickiness {
+
+    public static final String CLIENT_COOKIE = "polls_client";
+
+    private static final ThreadLocal<String> CURRENT_CLIENT = new ThreadLocal<>();
+
+    private final Map<String, Long> stickyUntil = new ConcurrentHashMap<>();
+    private final long windowNanos;
+
+    public PrimaryStickiness(ReadReplicaProperties properties) {
+        this.windowNanos = properties.primaryStickiness().toNanos();
+    }
+
+    // Never the remote address: every client behind one NAT or load balancer would share it
+    public static String clientKey(String voterToken, String clientId) {
+        if (voterToken != null && !voterToken.isBlank()) return "voter:" + voterToken;
+        if (clientId != null && !clientId.isBlank()) return "client:" + clientId;
+        return null;
+    }
+
+    public void bind(String clientKey) {
+        CURRENT_CLIENT.set(clientKey);
+    }
+
+    public void clear() {
+        CURRENT_CLIENT.remove();
+    }
+
+    public void recordWrite() {
+        recordWrite(CURRENT_CLIENT.get());
+    }
+
+    public void recordWrite(String clientKey) {
+        if (clientKey != null) {
+            stickyUntil.put(clientKey, System.nanoTime() + windowNanos);
+        }
+    }
+
+    public boolean isSticky() {
+        String clientKey = CURRENT_CLIENT.get();
+
+        if (clientKey == null) return false;
+
+        Long until = stickyUntil.get(clientKey);
+
+        return until != null && until - System.nanoTime() > 0;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.health-check-interval-ms:5000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        stickyUntil.values().removeIf(until -> until - now <= 0);
+    }
+}
@@ -0,0 +1,134 @@
+package com.smlaurindo.realtime_polls.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final PrimaryStickiness primaryStickiness;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private final Counter replicaReads;
+    private final Counter stickyReads;
+    private final Counter failoverReads;
+
+    public ReplicaRoutingDataSource(
+            DataSource primary,
+            List<HikariDataSource> replicas,
+            PrimaryStickiness primaryStickiness,
+            MeterRegistry meterRegistry
+    ) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.primaryStickiness = primaryStickiness;
+
+        this.replicaReads = meterRegistry.counter("polls.datasource.read.routes", "target", "replica", "reason", "read-only");
+        this.stickyReads = meterRegistry.counter("polls.datasource.read.routes", "target", "primary", "reason", "sticky");
+        this.failoverReads = meterRegistry.counter("polls.datasource.read.routes", "target", "primary", "reason", "failover");
+
+        Gauge.builder("polls.datasource.replicas.healthy", this.replicas, r -> r.stream().filter(Replica::isHealthy).count())
+                .description("Read replicas currently accepting read-only transactions")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    // Routed like any other connection; whether other credentials are accepted is up to the pool
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection route(ConnectionOpener opener) throws SQLException {
+        // Keeps a client that just wrote on the primary until replication has caught up with its change
+        if (primaryStickiness.isSticky()) {
+            stickyReads.increment();
+            return opener.open(primary);
+        }
+
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+
+        for (int i = 0; i < replicas.size(); i++) {
+            var replica = replicas.get((start + i) % replicas.size());
+
+            if (!replica.isHealthy()) continue;
+
+            try {
+                Connection connection = opener.open(replica.dataSource);
+                replicaReads.increment();
+                return connection;
+            } catch (SQLException e) {
+                markHealth(replica, false, e.getMessage());
+            }
+        }
+
+        failoverReads.increment();
+        return opener.open(primary);
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.health-check-interval-ms:5000}")
+    public void checkHealth() {
+        for (var replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                markHealth(replica, connection.isValid(VALIDATION_TIMEOUT_SECONDS), "connection is not valid");
+            } catch (SQLException e) {
+                markHealth(replica, false, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    private void markHealth(Replica replica, boolean healthy, String reason) {
+        if (replica.healthy == healthy) return;
+
+        replica.healthy = healthy;
+
+        if (healthy) {
+            log.info("Replica {} is back, routing read-only transactions to it", replica.dataSource.getPoolName());
+        } else {
+            log.warn("Replica {} is down, routing around it: {}", replica.dataSource.getPoolName(), reason);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionOpener {
+        Connection open(DataSource dataSource) throws SQLException;
+    }
+
+    private static final class Replica {
+
+        private final HikariDataSource dataSource;
+        private volatile boolean healthy = true;
+
+        private Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        private boolean isHealthy() {
+            return healthy;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.smlaurindo.realtime_polls.domain;
+
+import java.time.temporal.ChronoUnit;
+
+public enum HistoryResolution {
+    SECOND(ChronoUnit.SECONDS),
+    MINUTE(ChronoUnit.MINUTES),
+    HOUR(ChronoUnit.HOURS);
+
+    private final ChronoUnit unit;
+
+    HistoryResolution(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    public ChronoUnit unit() {
+        return unit;
+    }
+
+    // Field name understood by PostgreSQL date_trunc
+    public String field() {
+        return name().toLowerCase();
+    }
+}
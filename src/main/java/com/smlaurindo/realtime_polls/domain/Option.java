@@ -3,6 +3,8 @@ package com.smlaurindo.realtime_polls.domain;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.util.UUID;
+
 @Entity
 @Table(name = "options")
 @Getter
@@ -12,9 +14,8 @@ import lombok.*;
 @NoArgsConstructor
 public class Option {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
     @Column(name = "id")
-    private String id;
+    private UUID id;
 
     @Column(name = "text")
     private String text;
@@ -22,7 +23,21 @@ public class Option {
     @Column(name = "votes")
     private int votes;
 
+    // Filled in by VoteCounter in SHARDED mode, so other loads never run the shard subquery
+    @Transient
+    private int shardVotes;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "poll_id", nullable = false)
     private Poll poll;
+
+    @Transient
+    public int getTotalVotes() {
+        return votes + shardVotes;
+    }
+
+    @PrePersist
+    void assignId() {
+        if (id == null) id = TimeOrderedUuid.generate();
+    }
 }
@@ -5,6 +5,7 @@ import lombok.*;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.UUID;
 
 @Entity
 @Table(name = "polls")
@@ -15,9 +16,8 @@ import java.util.List;
 @NoArgsConstructor
 public class Poll {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
     @Column(name = "id")
-    private String id;
+    private UUID id;
 
     @Column(name = "question")
     private String question;
@@ -31,11 +31,13 @@ public class Poll {
     @OneToMany(mappedBy = "poll", fetch = FetchType.LAZY)
     private List<Option> options;
 
-    @Transient
-    public PollStatus getStatus() {
-        Instant now = Instant.now();
-        if (now.isBefore(startsAt)) return PollStatus.NOT_STARTED;
-        if (now.isAfter(endsAt) || now.equals(endsAt)) return PollStatus.FINISHED;
-        return PollStatus.IN_PROGRESS;
+    // Takes the time from the caller, so one request sees every poll at the same instant
+    public PollStatus getStatus(Instant now) {
+        return PollStatus.of(startsAt, endsAt, now);
+    }
+
+    @PrePersist
+    void assignId() {
+        if (id == null) id = TimeOrderedUuid.generate();
     }
 }
@@ -1,7 +1,15 @@
 package com.smlaurindo.realtime_polls.domain;
 
+import java.time.Instant;
+
 public enum PollStatus {
     NOT_STARTED,
     IN_PROGRESS,
-    FINISHED,
+    FINISHED;
+
+    public static PollStatus of(Instant startsAt, Instant endsAt, Instant now) {
+        if (now.isBefore(startsAt)) return NOT_STARTED;
+        if (now.isAfter(endsAt) || now.equals(endsAt)) return FINISHED;
+        return IN_PROGRESS;
+    }
 }
@@ -0,0 +1,19 @@
+package com.smlaurindo.realtime_polls.domain;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+// UUIDv7 (RFC 9562): a 48-bit millisecond timestamp up front keeps new rows at the right edge of the primary key index
+public final class TimeOrderedUuid {
+
+    private TimeOrderedUuid() {}
+
+    public static UUID generate() {
+        var random = ThreadLocalRandom.current();
+
+        long msb = (System.currentTimeMillis() << 16) | 0x7000L | (random.nextLong() & 0x0FFFL);
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+
+        return new UUID(msb, lsb);
+    }
+}
@@ -0,0 +1,12 @@
+package com.smlaurindo.realtime_polls.dto.message;
+
+import java.util.List;
+
+public record ClientMessage(
+        String type,
+        String requestId,
+        String pollId,
+        List<String> pollIds,
+        String optionId,
+        String voterToken
+) {}
@@ -0,0 +1,7 @@
+package com.smlaurindo.realtime_polls.dto.message;
+
+public record ErrorMessage(
+        String requestId,
+        String title,
+        String details
+) {}
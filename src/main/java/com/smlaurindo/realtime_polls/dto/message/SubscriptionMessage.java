@@ -0,0 +1,8 @@
+package com.smlaurindo.realtime_polls.dto.message;
+
+import java.util.Set;
+
+public record SubscriptionMessage(
+        String requestId,
+        Set<String> pollIds
+) {}
@@ -0,0 +1,7 @@
+package com.smlaurindo.realtime_polls.dto.message;
+
+public record VoteAckMessage(
+        String requestId,
+        String optionId,
+        int votes
+) {}
@@ -1,8 +1,11 @@
 package com.smlaurindo.realtime_polls.dto.message;
 
+import com.smlaurindo.realtime_polls.dto.response.VoteSummaryResponse;
+
 public record VoteUpdateMessage(
         String id,
         String text,
-        int votes
+        int votes,
+        VoteSummaryResponse summary
 ) {}
 
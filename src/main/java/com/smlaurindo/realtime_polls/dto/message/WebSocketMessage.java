@@ -2,6 +2,7 @@ package com.smlaurindo.realtime_polls.dto.message;
 
 public record WebSocketMessage<T>(
         String type,
+        String pollId,
         T payload,
         String timestamp
-) {}
\ No newline at end of file
+) {}
@@ -12,12 +12,15 @@ public record CreatePollRequest(
         @Size(max = 2000, message = "The question cannot be longer than 2000 characters")
         String question,
 
+        @NotNull(message = "The start date is required")
         @FutureOrPresent(message = "The poll cannot start in the past")
         OffsetDateTime startsAt,
 
+        @NotNull(message = "The end date is required")
         @FutureOrPresent(message = "The poll cannot end in the past")
         OffsetDateTime endsAt,
 
+        @NotNull(message = "The options are required")
         @Size(min = 3, message = "The poll must have at least 3 options")
         List<@NotBlank(message = "The option cannot be blank") String> options
 ) {}
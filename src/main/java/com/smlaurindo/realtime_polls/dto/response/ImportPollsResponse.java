@@ -0,0 +1,15 @@
+package com.smlaurindo.realtime_polls.dto.response;
+
+import java.util.List;
+import java.util.Map;
+
+public record ImportPollsResponse(
+        long imported,
+        long failed,
+        List<ImportPollsResponse.RowError> errors
+) {
+    public record RowError(
+            long row,
+            Map<String, String> errors
+    ) {}
+}
@@ -10,7 +10,8 @@ public record ListPollsResponse(
         PollStatus status,
         String startsAt,
         String endsAt,
-        List<OptionResponse> options
+        List<OptionResponse> options,
+        VoteSummaryResponse summary
 ) {
     public record OptionResponse(
             String id,
@@ -0,0 +1,23 @@
+package com.smlaurindo.realtime_polls.dto.response;
+
+import com.smlaurindo.realtime_polls.domain.HistoryResolution;
+
+import java.util.List;
+
+public record VoteHistoryResponse(
+        String pollId,
+        HistoryResolution resolution,
+        String from,
+        String to,
+        List<VoteHistoryResponse.OptionSeries> options
+) {
+    public record OptionSeries(
+            String optionId,
+            List<VoteHistoryResponse.Bucket> buckets
+    ) {}
+
+    public record Bucket(
+            String startsAt,
+            int votes
+    ) {}
+}
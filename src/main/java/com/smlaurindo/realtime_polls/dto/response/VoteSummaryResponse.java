@@ -0,0 +1,16 @@
+package com.smlaurindo.realtime_polls.dto.response;
+
+import java.util.List;
+
+public record VoteSummaryResponse(
+        long totalVotes,
+        String leadingOptionId,
+        List<VoteSummaryResponse.RankingEntry> ranking
+) {
+    public record RankingEntry(
+            int rank,
+            String optionId,
+            int votes,
+            double percentage
+    ) {}
+}
@@ -0,0 +1,61 @@
+package com.smlaurindo.realtime_polls.handler;
+
+import com.smlaurindo.realtime_polls.ratelimit.ConnectionAdmission;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+
+@Component
+@RequiredArgsConstructor
+public class AdmissionHandshakeInterceptor implements HandshakeInterceptor {
+
+    private final PollWebSocketHandler pollWebSocketHandler;
+    private final ConnectionAdmission connectionAdmission;
+
+    @Override
+    public boolean beforeHandshake(
+            ServerHttpRequest request,
+            ServerHttpResponse response,
+            WebSocketHandler wsHandler,
+            Map<String, Object> attributes
+    ) {
+        // Refused before the upgrade, so nothing is allocated for the session and the client backs off
+        if (!pollWebSocketHandler.isAccepting()) {
+            return reject(response, "1");
+        }
+
+        if (!connectionAdmission.tryAdmit(isResuming(request))) {
+            return reject(response, String.valueOf(connectionAdmission.retryAfterSeconds()));
+        }
+
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(
+            ServerHttpRequest request,
+            ServerHttpResponse response,
+            WebSocketHandler wsHandler,
+            Exception exception
+    ) {
+    }
+
+    private boolean reject(ServerHttpResponse response, String retryAfter) {
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfter);
+        return false;
+    }
+
+    private boolean isResuming(ServerHttpRequest request) {
+        var resume = UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst("resume");
+        return "1".equals(resume) || "true".equalsIgnoreCase(resume);
+    }
+}
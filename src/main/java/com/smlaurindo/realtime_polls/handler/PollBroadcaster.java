@@ -0,0 +1,44 @@
+package com.smlaurindo.realtime_polls.handler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.smlaurindo.realtime_polls.dto.message.WebSocketMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class PollBroadcaster {
+
+    private final ObjectWriter messageWriter;
+    private final PollWebSocketHandler webSocketHandler;
+    private final PollEventStreamHandler eventStreamHandler;
+
+    public PollBroadcaster(
+            ObjectMapper objectMapper,
+            PollWebSocketHandler webSocketHandler,
+            PollEventStreamHandler eventStreamHandler
+    ) {
+        // Resolved once instead of looking up the root serializer on every broadcast
+        this.messageWriter = objectMapper.writerFor(WebSocketMessage.class);
+        this.webSocketHandler = webSocketHandler;
+        this.eventStreamHandler = eventStreamHandler;
+    }
+
+    public void broadcast(String pollId, WebSocketMessage<?> message) {
+        byte[] json;
+
+        try {
+            // Encoded straight to UTF-8 in Jackson's recycled buffers, skipping the intermediate String
+            json = messageWriter.writeValueAsBytes(message);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize update for poll {}: {}", pollId, e.getMessage());
+            return;
+        }
+
+        // Serialized once and shared by every WebSocket session and event stream of the poll
+        webSocketHandler.sendVoteUpdate(pollId, json);
+        eventStreamHandler.sendVoteUpdate(pollId, message.type(), json);
+    }
+}
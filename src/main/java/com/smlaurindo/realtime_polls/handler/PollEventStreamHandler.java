@@ -0,0 +1,263 @@
+package com.smlaurindo.realtime_polls.handler;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+@Slf4j
+@Component
+public class PollEventStreamHandler {
+
+    private static final byte[] HEARTBEAT = ": heartbeat\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final Map<String, PollChannel> channels = new ConcurrentHashMap<>();
+
+    // "\nevent: <type>\ndata: " per event type, so a frame is assembled by copying bytes
+    private final Map<String, byte[]> eventFields = new ConcurrentHashMap<>();
+    private final Set<EventStream> openStreams = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean accepting = true;
+
+    // Seeded from the clock so event ids keep increasing across restarts and a resumed client never replays stale ids
+    private final AtomicLong eventIds = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    @Value("${app.sse.heartbeat-interval-ms:15000}")
+    private long heartbeatIntervalMs;
+
+    @Value("${app.sse.max-pending-frames:64}")
+    private int maxPendingFrames;
+
+    @Value("${app.sse.replay-buffer-size:100}")
+    private int replayBufferSize;
+
+    @Value("${app.sse.retry-ms:3000}")
+    private long retryMs;
+
+    @Value("${app.sse.replay-retention-ms:60000}")
+    private long replayRetentionMs;
+
+    public PollEventStreamHandler(MeterRegistry meterRegistry) {
+        Gauge.builder("polls.connections", openStreams, Set::size)
+                .description("Open realtime connections")
+                .tag("transport", "sse")
+                .register(meterRegistry);
+    }
+
+    // Runs on the request's virtual thread, which stays parked on the frame queue between events
+    public void stream(String pollId, String lastEventId, HttpServletResponse response) throws IOException {
+        if (!accepting) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(TimeUnit.MILLISECONDS.toSeconds(retryMs) + 1));
+            return;
+        }
+
+        var stream = new EventStream(maxPendingFrames);
+        long resumeFrom = parseEventId(lastEventId);
+
+        // Subscribing inside compute() keeps the sweep from removing the channel in between
+        var channel = channels.compute(pollId, (_, current) -> {
+            var subscribed = current != null ? current : new PollChannel();
+            subscribed.subscribe(stream, resumeFrom);
+            return subscribed;
+        });
+
+        openStreams.add(stream);
+
+        response.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.setHeader("X-Accel-Buffering", "no");
+
+        log.info("Event stream connected -> poll {}", pollId);
+
+        try {
+            OutputStream out = response.getOutputStream();
+
+            out.write(("retry: " + retryMs + "\n\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            boolean closing = false;
+
+            while (!stream.overflowed && !closing) {
+                byte[] frame = stream.frames.poll(heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+
+                if (frame == null) out.write(HEARTBEAT);
+
+                while (frame != null) {
+                    out.write(frame);
+                    closing |= frame == stream.farewell;
+                    frame = stream.frames.poll();
+                }
+
+                out.flush();
+            }
+
+            if (stream.overflowed) {
+                // A slow reader is dropped rather than buffered without bound; it resumes from Last-Event-ID
+                log.warn("Event stream for poll {} fell {} frames behind, closing", pollId, maxPendingFrames);
+            }
+        } catch (IOException e) {
+            log.debug("Event stream for poll {} closed by client: {}", pollId, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            channel.unsubscribe(stream);
+            openStreams.remove(stream);
+
+            log.info("Event stream disconnected from poll {}", pollId);
+        }
+    }
+
+    public void sendVoteUpdate(String pollId, String type, byte[] json) {
+        var channel = channels.get(pollId);
+
+        if (channel == null) return;
+
+        long id = eventIds.incrementAndGet();
+
+        byte[] idField = ("id: " + id).getBytes(StandardCharsets.US_ASCII);
+        byte[] eventField = eventFields.computeIfAbsent(type,
+                _ -> ("\nevent: " + type + "\ndata: ").getBytes(StandardCharsets.UTF_8));
+
+        byte[] frame = new byte[idField.length + eventField.length + json.length + 2];
+        System.arraycopy(idField, 0, frame, 0, idField.length);
+        System.arraycopy(eventField, 0, frame, idField.length, eventField.length);
+        System.arraycopy(json, 0, frame, idField.length + eventField.length, json.length);
+        frame[frame.length - 2] = '\n';
+        frame[frame.length - 1] = '\n';
+
+        channel.publish(id, frame, replayBufferSize);
+    }
+
+    public void startAccepting() {
+        accepting = true;
+    }
+
+    public void stopAccepting() {
+        accepting = false;
+    }
+
+    public int pendingFrames() {
+        return openStreams.stream().mapToInt(stream -> stream.frames.size()).sum();
+    }
+
+    // Ends at most max open streams with a retry hint, so their clients reconnect at different times
+    public int closeForRestart(int max, LongSupplier reconnectAfterMs) {
+        int closed = 0;
+
+        for (var stream : openStreams) {
+            if (closed >= max) break;
+            if (stream.farewell != null) continue;
+
+            stream.close(("retry: " + reconnectAfterMs.getAsLong() + "\n\n").getBytes(StandardCharsets.UTF_8));
+            closed++;
+        }
+
+        return closed;
+    }
+
+    // Channels outlive their last stream for a while, so a lone viewer that reconnects can still resume
+    @Scheduled(fixedDelayString = "${app.sse.heartbeat-interval-ms:15000}")
+    public void sweep() {
+        long idleBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(replayRetentionMs);
+
+        for (String pollId : channels.keySet()) {
+            channels.computeIfPresent(pollId, (_, channel) -> channel.isIdleSince(idleBefore) ? null : channel);
+        }
+    }
+
+    private static long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) return -1;
+
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private record Frame(long id, byte[] bytes) {}
+
+    private static final class EventStream {
+
+        private final BlockingQueue<byte[]> frames;
+        private volatile boolean overflowed;
+
+        // Last frame written before the stream ends; compared by identity on the writer thread
+        private volatile byte[] farewell;
+
+        private EventStream(int maxPendingFrames) {
+            this.frames = new ArrayBlockingQueue<>(maxPendingFrames);
+        }
+
+        private void offer(byte[] frame) {
+            if (!frames.offer(frame)) overflowed = true;
+        }
+
+        private void close(byte[] frame) {
+            farewell = frame;
+            offer(frame);
+        }
+    }
+
+    private static final class PollChannel {
+
+        private final Set<EventStream> streams = new HashSet<>();
+        private final Deque<Frame> recent = new ArrayDeque<>();
+        private long lastActivity = System.nanoTime();
+
+        // Replay and registration happen under the same lock as publish, so a resuming stream sees no gap or duplicate
+        private synchronized void subscribe(EventStream stream, long lastEventId) {
+            if (lastEventId >= 0) {
+                for (var frame : recent) {
+                    if (frame.id() > lastEventId) stream.offer(frame.bytes());
+                }
+            }
+
+            streams.add(stream);
+        }
+
+        private synchronized void unsubscribe(EventStream stream) {
+            streams.remove(stream);
+            lastActivity = System.nanoTime();
+        }
+
+        private synchronized void publish(long id, byte[] frame, int replayBufferSize) {
+            recent.addLast(new Frame(id, frame));
+            lastActivity = System.nanoTime();
+
+            while (recent.size() > replayBufferSize) {
+                recent.removeFirst();
+            }
+
+            for (var stream : streams) {
+                stream.offer(frame);
+            }
+        }
+
+        private synchronized boolean isIdleSince(long nanos) {
+            return streams.isEmpty() && lastActivity - nanos < 0;
+        }
+    }
+}
@@ -1,80 +1,369 @@
 package com.smlaurindo.realtime_polls.handler;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smlaurindo.realtime_polls.datasource.PrimaryStickiness;
+import com.smlaurindo.realtime_polls.dto.message.ClientMessage;
+import com.smlaurindo.realtime_polls.dto.message.ErrorMessage;
+import com.smlaurindo.realtime_polls.dto.message.SubscriptionMessage;
+import com.smlaurindo.realtime_polls.dto.message.VoteAckMessage;
 import com.smlaurindo.realtime_polls.dto.message.WebSocketMessage;
-import lombok.RequiredArgsConstructor;
+import com.smlaurindo.realtime_polls.profiling.BroadcastFanOutEvent;
+import com.smlaurindo.realtime_polls.ratelimit.RateLimiter;
+import com.smlaurindo.realtime_polls.service.PollService;
+import com.smlaurindo.realtime_polls.service.exception.DuplicateVoteException;
+import com.smlaurindo.realtime_polls.service.exception.PollNotInProgressException;
+import com.smlaurindo.realtime_polls.service.exception.ResourceNotFoundException;
+import com.smlaurindo.realtime_polls.service.exception.VoterTokenRequiredException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.LongSupplier;
 
 @Component
 @Slf4j
-@RequiredArgsConstructor
 public class PollWebSocketHandler extends TextWebSocketHandler {
 
     private final ObjectMapper objectMapper;
+    private final PollService pollService;
+    private final RateLimiter rateLimiter;
+    private final ObjectProvider<PrimaryStickiness> primaryStickiness;
+
+    @Value("${app.websocket.send-time-limit:5000}")
+    private int sendTimeLimit;
+
+    @Value("${app.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${app.websocket.max-subscriptions-per-session:50}")
+    private int maxSubscriptionsPerSession;
 
     private final Map<String, CopyOnWriteArraySet<WebSocketSession>> pollSessions = new ConcurrentHashMap<>();
 
+    private final Map<String, WebSocketSession> concurrentSessions = new ConcurrentHashMap<>();
+
+    // Reverse index of pollSessions, so a closing session leaves every poll it subscribed to
+    private final Map<String, Set<String>> sessionPolls = new ConcurrentHashMap<>();
+
+    // A closing session can still report itself open until the client answers the close frame
+    private final Set<String> closingSessions = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean accepting = true;
+
+    public PollWebSocketHandler(
+            ObjectMapper objectMapper,
+            PollService pollService,
+            RateLimiter rateLimiter,
+            ObjectProvider<PrimaryStickiness> primaryStickiness,
+            MeterRegistry meterRegistry
+    ) {
+        this.objectMapper = objectMapper;
+        this.pollService = pollService;
+        this.rateLimiter = rateLimiter;
+        this.primaryStickiness = primaryStickiness;
+
+        Gauge.builder("polls.connections", concurrentSessions, Map::size)
+                .description("Open realtime connections")
+                .tag("transport", "websocket")
+                .register(meterRegistry);
+    }
+
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         String pollId = extractPollId(session);
 
-        if (pollId == null) {
+        if (pollId == null && !isMultiplexed(session)) {
             session.close(CloseStatus.BAD_DATA);
             return;
         }
 
-        pollSessions
-                .computeIfAbsent(pollId, _ -> new CopyOnWriteArraySet<>())
-                .add(session);
+        // Broadcasts and vote ACKs may write to the same session from different threads
+        var concurrentSession = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimit, sendBufferSizeLimit);
+        concurrentSessions.put(session.getId(), concurrentSession);
+        sessionPolls.put(session.getId(), ConcurrentHashMap.newKeySet());
 
-        log.info("Session {} connected -> poll {}", session.getId(), pollId);
+        if (pollId != null) {
+            subscribe(session.getId(), pollId);
+        }
+
+        log.info("Session {} connected -> poll {}", session.getId(), pollId != null ? pollId : "(multiplexed)");
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
-        String pollId = extractPollId(session);
-
-        cleanupSession(pollId, session);
+        cleanupSession(session);
 
-        log.info("Session {} disconnected from poll {}. Reason: {}",
-                session.getId(), pollId, status);
+        log.info("Session {} disconnected. Reason: {}", session.getId(), status);
     }
 
     @Override
     public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
-        String pollId = extractPollId(session);
-
-        cleanupSession(pollId, session);
+        cleanupSession(session);
 
-        log.warn("Transport error on session {} -> poll {}: {}",
-                session.getId(), pollId, exception.getMessage());
+        log.warn("Transport error on session {}: {}", session.getId(), exception.getMessage());
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
         log.debug("Received message from Session {}: {}", session.getId(), message.getPayload());
+
+        ClientMessage clientMessage;
+
+        try {
+            clientMessage = objectMapper.readValue(message.getPayload(), ClientMessage.class);
+        } catch (JsonProcessingException e) {
+            clientMessage = null;
+        }
+
+        if (clientMessage == null) {
+            sendError(session, null, null, "Invalid Message", "The message could not be parsed.");
+            return;
+        }
+
+        switch (clientMessage.type()) {
+            case "VOTE" -> handleVote(session, clientMessage);
+            case "SUBSCRIBE" -> handleSubscribe(session, clientMessage);
+            case "UNSUBSCRIBE" -> handleUnsubscribe(session, clientMessage);
+            case null, default -> sendError(session, clientMessage.pollId(), clientMessage.requestId(),
+                    "Unsupported Message", "Message type " + clientMessage.type() + " is not supported.");
+        }
     }
 
-    private void cleanupSession(String pollId, WebSocketSession session) {
-        if (pollId == null) return;
+    private void handleSubscribe(WebSocketSession session, ClientMessage clientMessage) {
+        String requestId = clientMessage.requestId();
+        var pollIds = parsePollIds(clientMessage.pollIds());
+
+        if (pollIds == null) {
+            sendError(session, null, requestId, "Invalid Message", "The poll ids must be a non-empty list of UUIDs.");
+            return;
+        }
+
+        var subscribed = sessionPolls.get(session.getId());
+
+        if (subscribed == null) return;
+
+        long added = pollIds.stream().filter(pollId -> !subscribed.contains(pollId)).count();
 
-        pollSessions.computeIfPresent(pollId, (id, sessions) -> {
-            sessions.remove(session);
+        if (subscribed.size() + added > maxSubscriptionsPerSession) {
+            sendError(session, null, requestId, "Too Many Subscriptions",
+                    "A connection can subscribe to at most " + maxSubscriptionsPerSession + " polls.");
+            return;
+        }
+
+        pollIds.forEach(pollId -> subscribe(session.getId(), pollId));
+
+        send(session, new WebSocketMessage<>(
+                "SUBSCRIBED",
+                null,
+                new SubscriptionMessage(requestId, Set.copyOf(subscribed)),
+                Instant.now().toString()
+        ));
+    }
+
+    private void handleUnsubscribe(WebSocketSession session, ClientMessage clientMessage) {
+        String requestId = clientMessage.requestId();
+        var pollIds = parsePollIds(clientMessage.pollIds());
+
+        if (pollIds == null) {
+            sendError(session, null, requestId, "Invalid Message", "The poll ids must be a non-empty list of UUIDs.");
+            return;
+        }
+
+        pollIds.forEach(pollId -> unsubscribe(session.getId(), pollId));
+
+        var subscribed = sessionPolls.getOrDefault(session.getId(), Set.of());
+
+        send(session, new WebSocketMessage<>(
+                "UNSUBSCRIBED",
+                null,
+                new SubscriptionMessage(requestId, Set.copyOf(subscribed)),
+                Instant.now().toString()
+        ));
+    }
+
+    private void handleVote(WebSocketSession session, ClientMessage clientMessage) {
+        // Multiplexed connections name the poll in the message; single-poll connections take it from the URI
+        String pollId = clientMessage.pollId() != null ? canonicalPollId(clientMessage.pollId()) : extractPollId(session);
+        String requestId = clientMessage.requestId();
+        String optionId = clientMessage.optionId();
+
+        if (pollId == null) {
+            sendError(session, null, requestId, "Invalid Message", "The poll id is required and must be a UUID.");
+            return;
+        }
+
+        // A single-poll connection only votes on its own poll, whatever the message names
+        if (!isMultiplexed(session) && !pollId.equals(extractPollId(session))) {
+            sendError(session, pollId, requestId, "Invalid Message", "The poll id does not match the poll of this connection.");
+            return;
+        }
+
+        // Keyed like the HTTP votes, so opening more connections does not add budget
+        String clientKey = RateLimiter.clientKey(clientMessage.voterToken(), remoteAddress(session));
+
+        if (!rateLimiter.tryAcquire(RateLimiter.WEBSOCKET_VOTE, clientKey, pollId)) {
+            sendError(session, pollId, requestId, "Too Many Requests", "Vote rate limit exceeded for this connection.");
+            return;
+        }
+
+        if (optionId == null || optionId.isBlank()) {
+            sendError(session, pollId, requestId, "Invalid Message", "The option id is required.");
+            return;
+        }
+
+        try {
+            // Like an HTTP vote, so the client's next reads go to the primary until replicas have the vote
+            primaryStickiness.ifAvailable(stickiness -> stickiness.recordWrite(
+                    PrimaryStickiness.clientKey(clientMessage.voterToken(), clientCookie(session))));
+
+            int votes = pollService.votePollOption(pollId, optionId, clientMessage.voterToken());
+
+            send(session, new WebSocketMessage<>(
+                    "VOTE_ACK",
+                    pollId,
+                    new VoteAckMessage(requestId, optionId, votes),
+                    Instant.now().toString()
+            ));
+        } catch (ResourceNotFoundException e) {
+            sendError(session, pollId, requestId, "Resource Not Found", e.getMessage());
+        } catch (PollNotInProgressException e) {
+            sendError(session, pollId, requestId, "Poll Not In Progress", e.getMessage());
+        } catch (DuplicateVoteException e) {
+            sendError(session, pollId, requestId, "Duplicate Vote", e.getMessage());
+        } catch (VoterTokenRequiredException e) {
+            sendError(session, pollId, requestId, "Voter Token Required", e.getMessage());
+        } catch (Exception e) {
+            log.error("Failed to register vote from session {} on poll {}: {}", session.getId(), pollId, e.getMessage());
+            sendError(session, pollId, requestId, "Internal Server Error", "An unexpected error occurred.");
+        }
+    }
+
+    private void sendError(WebSocketSession session, String pollId, String requestId, String title, String details) {
+        send(session, new WebSocketMessage<>(
+                "ERROR",
+                pollId,
+                new ErrorMessage(requestId, title, details),
+                Instant.now().toString()
+        ));
+    }
+
+    private void send(WebSocketSession session, WebSocketMessage<?> message) {
+        var concurrentSession = concurrentSessions.getOrDefault(session.getId(), session);
+
+        try {
+            concurrentSession.sendMessage(new TextMessage(objectMapper.writeValueAsString(message)));
+        } catch (Exception e) {
+            log.warn("Error sending message to session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private void subscribe(String sessionId, String pollId) {
+        var concurrentSession = concurrentSessions.get(sessionId);
+        var subscribed = sessionPolls.get(sessionId);
+
+        if (concurrentSession == null || subscribed == null) return;
+
+        subscribed.add(pollId);
+
+        pollSessions
+                .computeIfAbsent(pollId, _ -> new CopyOnWriteArraySet<>())
+                .add(concurrentSession);
+    }
+
+    private void unsubscribe(String sessionId, String pollId) {
+        var concurrentSession = concurrentSessions.get(sessionId);
+        var subscribed = sessionPolls.get(sessionId);
+
+        if (concurrentSession == null || subscribed == null || !subscribed.remove(pollId)) return;
+
+        removeFromPoll(pollId, concurrentSession);
+    }
+
+    private void cleanupSession(WebSocketSession session) {
+        var concurrentSession = concurrentSessions.remove(session.getId());
+        var subscribed = sessionPolls.remove(session.getId());
+        closingSessions.remove(session.getId());
+
+        if (concurrentSession == null || subscribed == null) return;
+
+        subscribed.forEach(pollId -> removeFromPoll(pollId, concurrentSession));
+    }
+
+    private void removeFromPoll(String pollId, WebSocketSession concurrentSession) {
+        pollSessions.computeIfPresent(pollId, (_, sessions) -> {
+            sessions.remove(concurrentSession);
             return sessions.isEmpty() ? null : sessions;
         });
     }
 
+    private Set<String> parsePollIds(List<String> pollIds) {
+        if (pollIds == null || pollIds.isEmpty()) return null;
+
+        Set<String> parsed = new LinkedHashSet<>();
+
+        for (String pollId : pollIds) {
+            try {
+                parsed.add(UUID.fromString(pollId).toString());
+            } catch (IllegalArgumentException | NullPointerException e) {
+                return null;
+            }
+        }
+
+        return parsed;
+    }
+
+    private static String canonicalPollId(String pollId) {
+        try {
+            return UUID.fromString(pollId).toString();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String remoteAddress(WebSocketSession session) {
+        var address = session.getRemoteAddress();
+
+        if (address == null) return session.getId();
+
+        return address.getAddress() != null ? address.getAddress().getHostAddress() : address.getHostString();
+    }
+
+    private static String clientCookie(WebSocketSession session) {
+        for (String header : session.getHandshakeHeaders().getOrEmpty(HttpHeaders.COOKIE)) {
+            for (String cookie : header.split(";")) {
+                String[] pair = cookie.trim().split("=", 2);
+
+                if (pair.length == 2 && pair[0].equals(PrimaryStickiness.CLIENT_COOKIE)) return pair[1];
+            }
+        }
+
+        return null;
+    }
+
+    private boolean isMultiplexed(WebSocketSession session) {
+        var uri = session.getUri();
+        return uri != null && uri.getPath().replaceAll("/+$", "").endsWith("/ws/polls");
+    }
+
     private String extractPollId(WebSocketSession session) {
         var uri = session.getUri();
 
@@ -93,15 +382,59 @@ public class PollWebSocketHandler extends TextWebSocketHandler {
         }
     }
 
-    public void sendVoteUpdate(String pollId, WebSocketMessage<?> message) {
+    public boolean isAccepting() {
+        return accepting;
+    }
+
+    public void startAccepting() {
+        accepting = true;
+    }
+
+    public void stopAccepting() {
+        accepting = false;
+    }
+
+    public long pendingSendBytes() {
+        long pending = 0;
+
+        for (var session : concurrentSessions.values()) {
+            if (session instanceof ConcurrentWebSocketSessionDecorator decorator) {
+                pending += decorator.getBufferSize();
+            }
+        }
+
+        return pending;
+    }
+
+    // Closes at most max open sessions; the reason tells each client how long to wait before reconnecting
+    public int closeForRestart(int max, LongSupplier reconnectAfterMs) {
+        int closed = 0;
+
+        for (var session : concurrentSessions.values()) {
+            if (closed >= max) break;
+            if (!session.isOpen() || !closingSessions.add(session.getId())) continue;
+
+            try {
+                session.close(CloseStatus.SERVICE_RESTARTED.withReason("reconnect-after-ms=" + reconnectAfterMs.getAsLong()));
+                closed++;
+            } catch (Exception e) {
+                log.debug("Error closing session {} for restart: {}", session.getId(), e.getMessage());
+            }
+        }
+
+        return closed;
+    }
+
+    public void sendVoteUpdate(String pollId, byte[] json) {
         CopyOnWriteArraySet<WebSocketSession> sessions = pollSessions.get(pollId);
 
         if (sessions == null || sessions.isEmpty()) {
             return;
         }
 
+        var fanOut = BroadcastFanOutEvent.begin(pollId, sessions.size(), json.length);
+
         try {
-            String json = objectMapper.writeValueAsString(message);
             TextMessage textMessage = new TextMessage(json);
 
             sessions.removeIf(session -> {
@@ -120,7 +453,8 @@ public class PollWebSocketHandler extends TextWebSocketHandler {
             log.info("Sent update to {} active sessions for poll {}", sessions.size(), pollId);
         } catch (Exception e) {
             log.error("Failed to broadcast update for poll {}: {}", pollId, e.getMessage());
+        } finally {
+            fanOut.commit();
         }
     }
 }
-
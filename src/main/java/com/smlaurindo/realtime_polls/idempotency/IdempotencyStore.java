@@ -0,0 +1,305 @@
+package com.smlaurindo.realtime_polls.idempotency;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Responses of recent requests sent with an {@code Idempotency-Key}, so a retried request is
+ * answered with the original response instead of running again.
+ * <p>
+ * Keys are kept as 128-bit hashes of the endpoint, the client and the key, and requests as a 64-bit hash of
+ * their body, which puts an entry for a vote at roughly 150 bytes. Entries expire after
+ * {@code app.idempotency.ttl}; past {@code app.idempotency.max-keys} new keys are not tracked.
+ * Responses to creates can also be written to {@code idempotency_keys}, so a retry that reaches
+ * another instance, or this one after a restart, gets the same answer.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final String FIND_PERSISTED = """
+            SELECT fingerprint, status, content_type, body, expires_at FROM idempotency_keys
+            WHERE key_hash = ? AND expires_at > ?
+            """;
+
+    private static final String PERSIST = """
+            INSERT INTO idempotency_keys (key_hash, fingerprint, status, content_type, body, expires_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (key_hash) DO NOTHING
+            """;
+
+    private static final String PURGE_EXPIRED = "DELETE FROM idempotency_keys WHERE expires_at <= ?";
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+
+    @Value("${app.idempotency.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.idempotency.ttl:10m}")
+    private Duration ttl;
+
+    @Value("${app.idempotency.max-keys:500000}")
+    private int maxKeys;
+
+    @Value("${app.idempotency.persist-creates:false}")
+    private boolean persistCreates;
+
+    public IdempotencyStore(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+
+        Gauge.builder("polls.idempotency.keys", entries, Map::size)
+                .description("Idempotency keys currently remembered")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param scope      the endpoint and client the key was sent by; the same key in another scope is another request
+     * @param persistent whether the response may be kept in the database, for creates
+     * @param request    the parts of the request that must match on a retry
+     */
+    public Claim claim(String scope, String idempotencyKey, boolean persistent, byte[]... request) {
+        long now = System.nanoTime();
+
+        sweepIfDue(now);
+
+        byte[] keyHash = Arrays.copyOf(sha256(scope.getBytes(StandardCharsets.UTF_8), idempotencyKey.getBytes(StandardCharsets.UTF_8)), 16);
+        var key = new Key(ByteBuffer.wrap(keyHash).getLong(0), ByteBuffer.wrap(keyHash).getLong(8));
+        long fingerprint = ByteBuffer.wrap(sha256(request)).getLong();
+
+        var entry = entries.get(key);
+
+        if (entry != null && entry.isExpired(now)) {
+            entries.remove(key, entry);
+            entry = null;
+        }
+
+        // Only a miss in memory goes to the database, so retries served from here never do
+        if (entry == null && persistent && persistCreates) {
+            entry = findPersisted(keyHash, now);
+
+            if (entry != null && entries.size() < maxKeys) {
+                var existing = entries.putIfAbsent(key, entry);
+                if (existing != null) entry = existing;
+            }
+        }
+
+        if (entry == null) {
+            if (entries.size() >= maxKeys) {
+                sweep(now);
+            }
+
+            // Fail open rather than grow without bound, as the rate limiter does
+            if (entries.size() >= maxKeys) {
+                log.warn("Idempotency store is tracking {} keys, not tracking a new one", entries.size());
+                return counted(new Claim(Outcome.UNTRACKED, null, null, null, null, false));
+            }
+
+            var created = new Entry(fingerprint, now + ttl.toNanos(), null);
+            entry = entries.putIfAbsent(key, created);
+
+            if (entry == null) {
+                return counted(new Claim(Outcome.ACQUIRED, null, key, created, keyHash, persistent));
+            }
+        }
+
+        if (entry.fingerprint != fingerprint) {
+            return counted(new Claim(Outcome.MISMATCH, null, null, null, null, false));
+        }
+
+        var response = entry.response;
+
+        if (response == null) {
+            return counted(new Claim(Outcome.IN_PROGRESS, null, null, null, null, false));
+        }
+
+        return counted(new Claim(Outcome.REPLAYED, response, null, null, null, false));
+    }
+
+    public void complete(Claim claim, int status, String contentType, byte[] body) {
+        if (claim.outcome != Outcome.ACQUIRED) return;
+
+        // Server errors, timeouts, conflicts and rate limiting may go away, so the retry runs again
+        if (status >= 500 || status == 408 || status == 409 || status == 429) {
+            release(claim);
+            return;
+        }
+
+        var response = new StoredResponse(status, contentType, body);
+        claim.entry.response = response;
+
+        if (claim.persistent && persistCreates && status < 300) {
+            persist(claim, response);
+        }
+    }
+
+    public void release(Claim claim) {
+        if (claim.outcome != Outcome.ACQUIRED) return;
+
+        entries.remove(claim.key, claim.entry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        if (!enabled || !persistCreates) return;
+
+        int purged = jdbcTemplate.update(PURGE_EXPIRED, OffsetDateTime.ofInstant(clock.instant(), ZoneOffset.UTC));
+
+        meterRegistry.counter("polls.idempotency.purged").increment(purged);
+    }
+
+    private Entry findPersisted(byte[] keyHash, long now) {
+        var at = OffsetDateTime.ofInstant(clock.instant(), ZoneOffset.UTC);
+
+        List<Entry> rows = jdbcTemplate.query(FIND_PERSISTED, (rs, _) -> new Entry(
+                rs.getLong("fingerprint"),
+                now + Duration.between(at, rs.getObject("expires_at", OffsetDateTime.class)).toNanos(),
+                new StoredResponse(rs.getInt("status"), rs.getString("content_type"), rs.getBytes("body"))
+        ), keyHash, at);
+
+        return rows.isEmpty() ? null : rows.getFirst();
+    }
+
+    private void persist(Claim claim, StoredResponse response) {
+        var expiresAt = OffsetDateTime.ofInstant(clock.instant().plus(ttl), ZoneOffset.UTC);
+
+        try {
+            jdbcTemplate.update(PERSIST, claim.keyHash, claim.entry.fingerprint,
+                    response.status(), response.contentType(), response.body(), expiresAt);
+        } catch (DataAccessException e) {
+            // The create already committed; a retry on this instance is still answered from memory
+            log.warn("Failed to persist idempotency key: {}", e.getMessage());
+        }
+    }
+
+    private Claim counted(Claim claim) {
+        meterRegistry.counter("polls.idempotency.requests", "result", claim.outcome.tag).increment();
+        return claim;
+    }
+
+    private void sweepIfDue(long now) {
+        long last = lastSweep.get();
+
+        if (now - last >= SWEEP_INTERVAL_NANOS && lastSweep.compareAndSet(last, now)) {
+            sweep(now);
+        }
+    }
+
+    private void sweep(long now) {
+        entries.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    // Each part is prefixed with its length, so moving bytes from one part to the next changes the hash
+    private static byte[] sha256(byte[]... parts) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+
+            for (byte[] part : parts) {
+                digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(part.length).array());
+                digest.update(part);
+            }
+
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public enum Outcome {
+        ACQUIRED("acquired"),
+        REPLAYED("replayed"),
+        IN_PROGRESS("in-progress"),
+        MISMATCH("mismatch"),
+        UNTRACKED("untracked");
+
+        private final String tag;
+
+        Outcome(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    public record StoredResponse(int status, String contentType, byte[] body) {}
+
+    public static final class Claim {
+
+        private final Outcome outcome;
+        private final StoredResponse response;
+        private final Key key;
+        private final Entry entry;
+        private final byte[] keyHash;
+        private final boolean persistent;
+
+        private Claim(Outcome outcome, StoredResponse response, Key key, Entry entry, byte[] keyHash, boolean persistent) {
+            this.outcome = outcome;
+            this.response = response;
+            this.key = key;
+            this.entry = entry;
+            this.keyHash = keyHash;
+            this.persistent = persistent;
+        }
+
+        public Outcome outcome() {
+            return outcome;
+        }
+
+        // Only set when the outcome is REPLAYED
+        public StoredResponse response() {
+            return response;
+        }
+    }
+
+    private record Key(long high, long low) {}
+
+    private static final class Entry {
+
+        private final long fingerprint;
+        private final long expiresAtNanos;
+
+        // Null while the first request is still running
+        private volatile StoredResponse response;
+
+        Entry(long fingerprint, long expiresAtNanos, StoredResponse response) {
+            this.fingerprint = fingerprint;
+            this.expiresAtNanos = expiresAtNanos;
+            this.response = response;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+}
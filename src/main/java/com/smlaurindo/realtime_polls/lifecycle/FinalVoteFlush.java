@@ -0,0 +1,55 @@
+package com.smlaurindo.realtime_polls.lifecycle;
+
+import com.smlaurindo.realtime_polls.service.VoteBuffer;
+import com.smlaurindo.realtime_polls.service.VoteHistoryRecorder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class FinalVoteFlush implements SmartLifecycle {
+
+    // Stops after the web server (DEFAULT_PHASE - 2048), so votes of requests finished by its graceful shutdown are kept
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final VoteBuffer voteBuffer;
+    private final VoteHistoryRecorder voteHistoryRecorder;
+
+    private volatile boolean running;
+
+    public FinalVoteFlush(VoteBuffer voteBuffer, VoteHistoryRecorder voteHistoryRecorder) {
+        this.voteBuffer = voteBuffer;
+        this.voteHistoryRecorder = voteHistoryRecorder;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        // Both flushes keep what they could not write, but there is no next flush anymore
+        voteBuffer.flush();
+        voteHistoryRecorder.flushAll();
+
+        long lost = voteBuffer.pendingVotes();
+
+        if (lost > 0) {
+            log.error("{} buffered votes could not be written before shutdown", lost);
+        }
+
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
@@ -0,0 +1,195 @@
+package com.smlaurindo.realtime_polls.lifecycle;
+
+import com.smlaurindo.realtime_polls.config.AsyncConfig;
+import com.smlaurindo.realtime_polls.handler.PollEventStreamHandler;
+import com.smlaurindo.realtime_polls.handler.PollWebSocketHandler;
+import com.smlaurindo.realtime_polls.service.VoteBuffer;
+import com.smlaurindo.realtime_polls.service.VoteHistoryRecorder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+@Slf4j
+@Component
+public class RealtimeDrain implements SmartLifecycle {
+
+    // Stops before the web server's graceful shutdown (DEFAULT_PHASE - 1024), which would otherwise wait on open event streams
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 512;
+
+    private final PollWebSocketHandler webSocketHandler;
+    private final PollEventStreamHandler eventStreamHandler;
+    private final VoteBuffer voteBuffer;
+    private final VoteHistoryRecorder voteHistoryRecorder;
+    private final AsyncConfig asyncConfig;
+    private final MeterRegistry meterRegistry;
+
+    private volatile DrainPhase phase = DrainPhase.RUNNING;
+    private volatile boolean running;
+
+    @Value("${app.shutdown.drain.flush-timeout-ms:5000}")
+    private long flushTimeoutMs;
+
+    @Value("${app.shutdown.drain.close-batch-size:200}")
+    private int closeBatchSize;
+
+    @Value("${app.shutdown.drain.close-batch-interval-ms:100}")
+    private long closeBatchIntervalMs;
+
+    @Value("${app.shutdown.drain.reconnect-jitter-ms:10000}")
+    private long reconnectJitterMs;
+
+    public RealtimeDrain(
+            PollWebSocketHandler webSocketHandler,
+            PollEventStreamHandler eventStreamHandler,
+            VoteBuffer voteBuffer,
+            VoteHistoryRecorder voteHistoryRecorder,
+            AsyncConfig asyncConfig,
+            MeterRegistry meterRegistry
+    ) {
+        this.webSocketHandler = webSocketHandler;
+        this.eventStreamHandler = eventStreamHandler;
+        this.voteBuffer = voteBuffer;
+        this.voteHistoryRecorder = voteHistoryRecorder;
+        this.asyncConfig = asyncConfig;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("polls.drain.phase", this, drain -> drain.phase.ordinal())
+                .description("Shutdown drain phase: 0 running, 1 rejecting, 2 flushing, 3 closing, 4 drained")
+                .register(meterRegistry);
+
+        Gauge.builder("polls.drain.pending", asyncConfig, AsyncConfig::pendingTasks)
+                .description("Work still queued for realtime clients")
+                .tag("queue", "broadcasts")
+                .register(meterRegistry);
+
+        Gauge.builder("polls.drain.pending", webSocketHandler, PollWebSocketHandler::pendingSendBytes)
+                .description("Work still queued for realtime clients")
+                .tag("queue", "websocket-bytes")
+                .register(meterRegistry);
+
+        Gauge.builder("polls.drain.pending", eventStreamHandler, PollEventStreamHandler::pendingFrames)
+                .description("Work still queued for realtime clients")
+                .tag("queue", "sse-frames")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        webSocketHandler.startAccepting();
+        eventStreamHandler.startAccepting();
+
+        phase = DrainPhase.RUNNING;
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        long startedAt = System.nanoTime();
+
+        log.info("Draining realtime connections");
+
+        phase = DrainPhase.REJECTING;
+        webSocketHandler.stopAccepting();
+        eventStreamHandler.stopAccepting();
+
+        phase = DrainPhase.FLUSHING;
+        flushBroadcasts();
+
+        phase = DrainPhase.CLOSING;
+        closeConnections();
+
+        phase = DrainPhase.DRAINED;
+        running = false;
+
+        log.info("Drained realtime connections in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void flushBroadcasts() {
+        try {
+            // Buffered votes are only broadcast by their flush
+            voteBuffer.flush();
+        } catch (Exception e) {
+            log.warn("Failed to flush buffered votes while draining: {}", e.getMessage());
+        }
+
+        try {
+            voteHistoryRecorder.flushAll();
+        } catch (Exception e) {
+            log.warn("Failed to flush vote history while draining: {}", e.getMessage());
+        }
+
+        boolean flushed = awaitUntil(() -> asyncConfig.pendingTasks() == 0
+                && webSocketHandler.pendingSendBytes() == 0
+                && eventStreamHandler.pendingFrames() == 0);
+
+        if (!flushed) {
+            log.warn("Broadcasts still pending after {} ms, closing connections anyway", flushTimeoutMs);
+        }
+    }
+
+    // Paced so the clients of this instance do not all reconnect to the others at the same instant
+    private void closeConnections() {
+        while (true) {
+            int webSockets = webSocketHandler.closeForRestart(closeBatchSize, this::reconnectAfterMs);
+            int eventStreams = eventStreamHandler.closeForRestart(closeBatchSize, this::reconnectAfterMs);
+
+            meterRegistry.counter("polls.drain.closed", "transport", "websocket").increment(webSockets);
+            meterRegistry.counter("polls.drain.closed", "transport", "sse").increment(eventStreams);
+
+            if (webSockets == 0 && eventStreams == 0) return;
+
+            try {
+                Thread.sleep(closeBatchIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private boolean awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushTimeoutMs);
+
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline >= 0) return false;
+
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private long reconnectAfterMs() {
+        return ThreadLocalRandom.current().nextLong(reconnectJitterMs + 1);
+    }
+
+    private enum DrainPhase {
+        RUNNING,
+        REJECTING,
+        FLUSHING,
+        CLOSING,
+        DRAINED,
+    }
+}
@@ -1,43 +1,85 @@
 package com.smlaurindo.realtime_polls.observer;
 
+import com.smlaurindo.realtime_polls.domain.Option;
 import com.smlaurindo.realtime_polls.dto.message.VoteUpdateMessage;
 import com.smlaurindo.realtime_polls.dto.message.WebSocketMessage;
+import com.smlaurindo.realtime_polls.profiling.ListenerQueryEvent;
 import com.smlaurindo.realtime_polls.repository.OptionRepository;
-import com.smlaurindo.realtime_polls.handler.PollWebSocketHandler;
+import com.smlaurindo.realtime_polls.handler.PollBroadcaster;
+import com.smlaurindo.realtime_polls.service.PollTallies;
+import com.smlaurindo.realtime_polls.service.VoteCounter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
 import static org.springframework.transaction.annotation.Propagation.REQUIRES_NEW;
 
 @Component
 @RequiredArgsConstructor
 public class PollOptionVotedEventListener {
 
-    private final PollWebSocketHandler webSocketHandler;
+    private final PollBroadcaster pollBroadcaster;
     private final OptionRepository optionRepository;
+    private final PollTallies pollTallies;
+    private final VoteCounter voteCounter;
 
+    // Not read-only: the count just committed must be read from the primary, not from a lagging replica
     @Async
-    @Transactional(propagation = REQUIRES_NEW, readOnly = true)
+    @Transactional(propagation = REQUIRES_NEW)
     @TransactionalEventListener
     public void onPollOptionVoted(PollOptionVotedEvent event) {
-        var option = optionRepository.findById(event.getOptionId())
+        var optionQuery = ListenerQueryEvent.begin(event.getPollId(), "option");
+        var option = optionRepository.findById(UUID.fromString(event.getOptionId()))
                 .orElseThrow();
+        voteCounter.loadShardVotes(List.of(option));
+        optionQuery.commit();
+
+        var summary = pollTallies.record(
+                event.getPollId(),
+                option.getId().toString(),
+                option.getTotalVotes(),
+                () -> {
+                    // Only runs when the poll's tallies are not in memory yet
+                    var seedQuery = ListenerQueryEvent.begin(event.getPollId(), "seed-tallies");
+
+                    try {
+                        var seeded = optionRepository.findByPollIds(List.of(UUID.fromString(event.getPollId())));
+                        voteCounter.loadShardVotes(seeded);
+
+                        return seeded.stream()
+                                .collect(Collectors.toMap(
+                                        seededOption -> seededOption.getId().toString(),
+                                        Option::getTotalVotes,
+                                        (first, _) -> first,
+                                        LinkedHashMap::new
+                                ));
+                    } finally {
+                        seedQuery.commit();
+                    }
+                }
+        );
 
         VoteUpdateMessage voteUpdatedMessage = new VoteUpdateMessage(
-                option.getId(),
+                option.getId().toString(),
                 option.getText(),
-                option.getVotes()
+                option.getTotalVotes(),
+                summary
         );
 
         var message = new WebSocketMessage<>(
                 "VOTE_UPDATED",
+                event.getPollId(),
                 voteUpdatedMessage,
                 event.getEventTimestamp().toString()
         );
 
-        webSocketHandler.sendVoteUpdate(event.getPollId(), message);
+        pollBroadcaster.broadcast(event.getPollId(), message);
     }
 }
@@ -0,0 +1,39 @@
+package com.smlaurindo.realtime_polls.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.smlaurindo.realtime_polls.BroadcastFanOut")
+@Label("Broadcast Fan-Out")
+@Category({"Realtime Polls", "Broadcasts"})
+@Description("Sending one vote update to every WebSocket session subscribed to a poll")
+@StackTrace(false)
+public class BroadcastFanOutEvent extends Event {
+
+    @Label("Poll")
+    String pollId;
+
+    @Label("Sessions")
+    int sessions;
+
+    @Label("Message Size")
+    @DataAmount
+    int messageBytes;
+
+    public BroadcastFanOutEvent(String pollId, int sessions, int messageBytes) {
+        this.pollId = pollId;
+        this.sessions = sessions;
+        this.messageBytes = messageBytes;
+    }
+
+    public static BroadcastFanOutEvent begin(String pollId, int sessions, int messageBytes) {
+        var event = new BroadcastFanOutEvent(pollId, sessions, messageBytes);
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,171 @@
+package com.smlaurindo.realtime_polls.profiling;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.ToLongFunction;
+
+/**
+ * A JFR recording that runs for the life of the application and keeps the last
+ * {@code app.profiling.max-age}, so a latency spike can be looked at after the fact.
+ * Windows of it are dumped as they are or folded into collapsed stacks, the input of
+ * flamegraph.pl, speedscope and most other flame graph viewers.
+ */
+@Slf4j
+@Component
+public class ContinuousRecording implements DisposableBean {
+
+    private final Clock clock;
+    private final Duration maxAge;
+
+    // Null when profiling is disabled
+    private final Recording recording;
+
+    public ContinuousRecording(
+            Clock clock,
+            @Value("${app.profiling.enabled:false}") boolean enabled,
+            @Value("${app.profiling.settings:default}") String settings,
+            @Value("${app.profiling.max-age:30m}") Duration maxAge,
+            @Value("${app.profiling.max-size:256MB}") DataSize maxSize
+    ) throws IOException, ParseException {
+        this.clock = clock;
+        this.maxAge = maxAge;
+
+        if (!enabled) {
+            this.recording = null;
+            return;
+        }
+
+        // "default" keeps the overhead around 1%; "profile" samples more often at a few percent
+        this.recording = new Recording(Configuration.getConfiguration(settings));
+        recording.setName("realtime-polls");
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSize.toBytes());
+        recording.start();
+
+        log.info("Started continuous JFR recording with '{}' settings, keeping the last {}", settings, maxAge);
+    }
+
+    public boolean isRecording() {
+        return recording != null;
+    }
+
+    public Duration maxAge() {
+        return maxAge;
+    }
+
+    // The caller deletes the returned file
+    public Path dump(Duration last) throws IOException {
+        Path snapshot = Files.createTempFile("realtime-polls-", ".jfr");
+        Path window = Files.createTempFile("realtime-polls-window-", ".jfr");
+        Instant since = clock.instant().minus(last);
+
+        try {
+            recording.dump(snapshot);
+
+            try (var file = new RecordingFile(snapshot)) {
+                file.write(window, event -> !event.getEndTime().isBefore(since));
+            }
+
+            return window;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(window);
+            throw e;
+        } finally {
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    // One "frame;frame;...;leaf weight" line per distinct stack, root first; the caller deletes the returned file
+    public Path collapsedStacks(Duration last, StackSample sample) throws IOException {
+        Path window = dump(last);
+        Map<String, Long> stacks = new HashMap<>();
+
+        try (var file = new RecordingFile(window)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+
+                if (!event.getEventType().getName().equals(sample.eventName) || event.getStackTrace() == null) {
+                    continue;
+                }
+
+                stacks.merge(collapse(event.getStackTrace()), sample.weight.applyAsLong(event), Long::sum);
+            }
+        } finally {
+            Files.deleteIfExists(window);
+        }
+
+        Path output = Files.createTempFile("realtime-polls-", ".collapsed");
+
+        try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            for (var stack : stacks.entrySet()) {
+                writer.write(stack.getKey());
+                writer.write(' ');
+                writer.write(Long.toString(stack.getValue()));
+                writer.newLine();
+            }
+        }
+
+        return output;
+    }
+
+    @Override
+    public void destroy() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    private static String collapse(RecordedStackTrace stackTrace) {
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        var stack = new StringJoiner(";");
+
+        // JFR lists the leaf first
+        for (int i = frames.size() - 1; i >= 0; i--) {
+            var method = frames.get(i).getMethod();
+            stack.add(method.getType().getName() + "." + method.getName());
+        }
+
+        return stack.toString();
+    }
+
+    public enum StackSample {
+        // One sample of a running thread every 20 ms with the default settings
+        CPU("jdk.ExecutionSample", _ -> 1),
+        // Weighted by the bytes each sample stands for
+        ALLOCATION("jdk.ObjectAllocationSample", event -> event.getLong("weight")),
+        // Weighted by the nanoseconds spent waiting on a contended monitor
+        LOCK("jdk.JavaMonitorEnter", event -> event.getDuration().toNanos());
+
+        private final String eventName;
+        private final ToLongFunction<RecordedEvent> weight;
+
+        StackSample(String eventName, ToLongFunction<RecordedEvent> weight) {
+            this.eventName = eventName;
+            this.weight = weight;
+        }
+    }
+}
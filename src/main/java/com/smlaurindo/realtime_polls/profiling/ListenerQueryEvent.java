@@ -0,0 +1,33 @@
+package com.smlaurindo.realtime_polls.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.smlaurindo.realtime_polls.ListenerQuery")
+@Label("Vote Listener Query")
+@Category({"Realtime Polls", "Broadcasts"})
+@Description("Database time spent by the vote listener before it broadcasts an update")
+@StackTrace(false)
+public class ListenerQueryEvent extends Event {
+
+    @Label("Poll")
+    String pollId;
+
+    @Label("Query")
+    String query;
+
+    public ListenerQueryEvent(String pollId, String query) {
+        this.pollId = pollId;
+        this.query = query;
+    }
+
+    public static ListenerQueryEvent begin(String pollId, String query) {
+        var event = new ListenerQueryEvent(pollId, query);
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,114 @@
+package com.smlaurindo.realtime_polls.profiling;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+
+/**
+ * {@code GET /actuator/profiling/recording?minutes=5} returns the last minutes of the continuous
+ * recording as a {@code .jfr} file, and {@code GET /actuator/profiling/flamegraph?minutes=5&type=cpu}
+ * returns them as collapsed stacks. Access is checked by {@code ProfilingAccessFilter}.
+ */
+@Component
+@WebEndpoint(id = "profiling")
+@RequiredArgsConstructor
+public class ProfilingEndpoint {
+
+    private static final int DEFAULT_MINUTES = 5;
+
+    private final ContinuousRecording continuousRecording;
+
+    // Dumping copies the whole recording to disk, so only one runs at a time
+    private final Semaphore dumping = new Semaphore(1);
+
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> dump(
+            @Selector String output,
+            @Nullable Integer minutes,
+            @Nullable String type
+    ) throws IOException {
+        if (!continuousRecording.isRecording()) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+
+        if (minutes != null && minutes <= 0) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+
+        Duration last = Duration.ofMinutes(minutes != null ? minutes : DEFAULT_MINUTES);
+
+        if (last.compareTo(continuousRecording.maxAge()) > 0) {
+            last = continuousRecording.maxAge();
+        }
+
+        ContinuousRecording.StackSample sample;
+
+        try {
+            sample = type != null
+                    ? ContinuousRecording.StackSample.valueOf(type.toUpperCase(Locale.ROOT))
+                    : ContinuousRecording.StackSample.CPU;
+        } catch (IllegalArgumentException e) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+
+        if (!dumping.tryAcquire()) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_TOO_MANY_REQUESTS);
+        }
+
+        try {
+            return switch (output) {
+                case "recording" -> new WebEndpointResponse<>(new TemporaryFileResource(continuousRecording.dump(last)));
+                case "flamegraph" -> new WebEndpointResponse<>(new TemporaryFileResource(continuousRecording.collapsedStacks(last, sample)));
+                default -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+            };
+        } finally {
+            dumping.release();
+        }
+    }
+
+    // Deleted once the response has been written
+    private static final class TemporaryFileResource extends FileSystemResource {
+
+        private final Path path;
+
+        TemporaryFileResource(Path path) {
+            super(path);
+            this.path = path;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(super.getInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        Files.deleteIfExists(path);
+                    }
+                }
+            };
+        }
+
+        // Keeps the file from being sent with a zero-copy transfer, which would skip the stream above
+        @Override
+        public boolean isFile() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.smlaurindo.realtime_polls.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.smlaurindo.realtime_polls.VotePhase")
+@Label("Vote Phase")
+@Category({"Realtime Polls", "Votes"})
+@Description("One phase of casting a vote: lookup, register-voter, increment or commit")
+@StackTrace(false)
+public class VotePhaseEvent extends Event {
+
+    @Label("Poll")
+    String pollId;
+
+    @Label("Phase")
+    String phase;
+
+    public VotePhaseEvent(String pollId, String phase) {
+        this.pollId = pollId;
+        this.phase = phase;
+    }
+
+    public static VotePhaseEvent begin(String pollId, String phase) {
+        var event = new VotePhaseEvent(pollId, phase);
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,111 @@
+package com.smlaurindo.realtime_polls.ratelimit;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Vegas-style concurrency limit: the gap between the latest and the lowest observed latency
+ * estimates how many requests are queueing, and the limit moves to keep that queue small.
+ * Requests over the limit are refused at once instead of waiting on the connection pool.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int probeInterval;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+
+    // Guarded by this
+    private double estimatedLimit;
+    private long minLatencyNanos = Long.MAX_VALUE;
+    private int samplesUntilProbe;
+
+    public AdaptiveConcurrencyLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${app.concurrency-limit.enabled:false}") boolean enabled,
+            @Value("${app.concurrency-limit.initial-limit:20}") int initialLimit,
+            @Value("${app.concurrency-limit.min-limit:4}") int minLimit,
+            @Value("${app.concurrency-limit.max-limit:200}") int maxLimit,
+            @Value("${app.concurrency-limit.probe-interval:1000}") int probeInterval
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.probeInterval = probeInterval;
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+        this.samplesUntilProbe = probeInterval;
+
+        Gauge.builder("polls.concurrency.limit", this, limiter -> limiter.limit)
+                .description("Concurrent database-bound requests currently allowed")
+                .register(meterRegistry);
+
+        Gauge.builder("polls.concurrency.in-flight", inFlight, AtomicInteger::get)
+                .description("Database-bound requests in progress")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean tryAcquire() {
+        if (inFlight.incrementAndGet() > limit) {
+            inFlight.decrementAndGet();
+            meterRegistry.counter("polls.concurrency.requests", "result", "rejected").increment();
+            return false;
+        }
+
+        meterRegistry.counter("polls.concurrency.requests", "result", "admitted").increment();
+        return true;
+    }
+
+    // overloaded: the request failed because a downstream resource was saturated, such as a pool timeout
+    public void release(long latencyNanos, boolean overloaded) {
+        int concurrency = inFlight.getAndDecrement();
+        update(latencyNanos, concurrency, overloaded);
+    }
+
+    private synchronized void update(long latencyNanos, int concurrency, boolean overloaded) {
+        // The lowest latency drifts up when the workload changes, so it is measured again now and then
+        if (--samplesUntilProbe <= 0) {
+            minLatencyNanos = latencyNanos;
+            samplesUntilProbe = probeInterval;
+        }
+
+        minLatencyNanos = Math.min(minLatencyNanos, latencyNanos);
+
+        double current = estimatedLimit;
+        double next;
+
+        if (overloaded) {
+            next = current / 2;
+        } else {
+            double queue = current * (1 - (double) minLatencyNanos / Math.max(latencyNanos, 1));
+            double step = Math.max(1, Math.log10(current));
+
+            if (queue <= 3 * step) {
+                // Grows only while the limit is actually being used, so idle periods do not inflate it
+                next = concurrency * 2 >= current ? current + step : current;
+            } else if (queue >= 6 * step) {
+                next = current - step;
+            } else {
+                next = current;
+            }
+        }
+
+        estimatedLimit = Math.clamp(next, minLimit, maxLimit);
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,58 @@
+package com.smlaurindo.realtime_polls.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+@Component
+public class ConnectionAdmission {
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final TokenBucket shared;
+    private final TokenBucket resumeReserve;
+    private final int retryAfterSeconds;
+    private final int retryAfterJitterSeconds;
+
+    public ConnectionAdmission(
+            MeterRegistry meterRegistry,
+            @Value("${app.websocket.admission.enabled:false}") boolean enabled,
+            @Value("${app.websocket.admission.rate:200}") double rate,
+            @Value("${app.websocket.admission.burst:400}") int burst,
+            @Value("${app.websocket.admission.resume-rate:100}") double resumeRate,
+            @Value("${app.websocket.admission.resume-burst:200}") int resumeBurst,
+            @Value("${app.websocket.admission.retry-after-seconds:1}") int retryAfterSeconds,
+            @Value("${app.websocket.admission.retry-after-jitter-seconds:5}") int retryAfterJitterSeconds
+    ) {
+        long now = System.nanoTime();
+
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.shared = new TokenBucket(rate, burst, now);
+        this.resumeReserve = new TokenBucket(resumeRate, resumeBurst, now);
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.retryAfterJitterSeconds = retryAfterJitterSeconds;
+    }
+
+    // Resuming clients already had a session here; they fall back to a reserve that new clients cannot drain
+    public boolean tryAdmit(boolean resuming) {
+        if (!enabled) return true;
+
+        long now = System.nanoTime();
+        boolean admitted = shared.tryAcquire(now) || (resuming && resumeReserve.tryAcquire(now));
+
+        meterRegistry.counter("polls.websocket.admission",
+                "result", admitted ? "admitted" : "rejected",
+                "client", resuming ? "resuming" : "new"
+        ).increment();
+
+        return admitted;
+    }
+
+    // Jittered, so the clients turned away in one burst do not all come back in the same second
+    public int retryAfterSeconds() {
+        return retryAfterSeconds + ThreadLocalRandom.current().nextInt(retryAfterJitterSeconds + 1);
+    }
+}
@@ -0,0 +1,121 @@
+package com.smlaurindo.realtime_polls.ratelimit;
+
+import com.smlaurindo.realtime_polls.config.RateLimitProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Component
+public class RateLimiter {
+
+    public static final String VOTE = "vote";
+    public static final String WEBSOCKET_VOTE = "websocket-vote";
+    public static final String WEBSOCKET_CONNECT = "websocket-connect";
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    public RateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("polls.rate.limit.buckets", buckets, Map::size)
+                .description("Token buckets currently tracked by the rate limiter")
+                .register(meterRegistry);
+    }
+
+    // The voter token tells apart clients sharing an address, e.g. behind a NAT or a proxy
+    public static String clientKey(String voterToken, String remoteAddress) {
+        if (voterToken != null && !voterToken.isBlank()) return "voter:" + voterToken;
+        return remoteAddress != null ? "address:" + remoteAddress : null;
+    }
+
+    public boolean tryAcquire(String endpoint, String clientKey, String pollId) {
+        return acquireOrRetryAfterNanos(endpoint, clientKey, pollId) == 0;
+    }
+
+    // Returns 0 when the request may proceed, otherwise how long until the bucket that rejected it has a token again
+    public long acquireOrRetryAfterNanos(String endpoint, String clientKey, String pollId) {
+        if (!properties.enabled() || properties.endpoints() == null) return 0;
+
+        var limits = properties.endpoints().get(endpoint);
+
+        if (limits == null) return 0;
+
+        long now = System.nanoTime();
+
+        sweepIfDue(now);
+
+        if (clientKey != null && limits.perClient() != null) {
+            long retryAfterNanos = acquire(endpoint + ":client:" + clientKey, limits.perClient(), now);
+
+            if (retryAfterNanos > 0) {
+                reject(endpoint, "client");
+                return retryAfterNanos;
+            }
+        }
+
+        if (pollId != null && limits.perPoll() != null) {
+            long retryAfterNanos = acquire(endpoint + ":poll:" + pollId, limits.perPoll(), now);
+
+            if (retryAfterNanos > 0) {
+                reject(endpoint, "poll");
+                return retryAfterNanos;
+            }
+        }
+
+        return 0;
+    }
+
+    private long acquire(String key, RateLimitProperties.Limit limit, long now) {
+        var bucket = buckets.get(key);
+
+        if (bucket == null) {
+            if (buckets.size() >= properties.maxKeys()) {
+                sweep(now);
+            }
+
+            // Fail open rather than grow without bound when every tracked key is active
+            if (buckets.size() >= properties.maxKeys()) {
+                log.warn("Rate limiter is tracking {} keys, not limiting {}", buckets.size(), key);
+                return 0;
+            }
+
+            bucket = buckets.computeIfAbsent(key, _ -> new TokenBucket(limit.rate(), limit.burst(), now));
+        }
+
+        if (bucket.tryAcquire(now)) return 0;
+
+        // At least a nanosecond, since a token may have come free between the two reads
+        return Math.max(1, bucket.nanosUntilAvailable(now));
+    }
+
+    private void reject(String endpoint, String scope) {
+        meterRegistry.counter("polls.rate.limit.rejected", "endpoint", endpoint, "scope", scope).increment();
+    }
+
+    private void sweepIfDue(long now) {
+        long last = lastSweep.get();
+
+        if (now - last >= SWEEP_INTERVAL_NANOS && lastSweep.compareAndSet(last, now)) {
+            sweep(now);
+        }
+    }
+
+    private void sweep(long now) {
+        long idleNanos = properties.idleExpiry().toNanos();
+        buckets.values().removeIf(bucket -> bucket.isIdle(now, idleNanos));
+    }
+}
@@ -0,0 +1,45 @@
+package com.smlaurindo.realtime_polls.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket implemented as a GCRA: the whole state is the theoretical
+ * arrival time of the next request, advanced with a single CAS per acquired token.
+ */
+public final class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final AtomicLong theoreticalArrivalTime;
+
+    public TokenBucket(double ratePerSecond, int burst, long nowNanos) {
+        this.emissionIntervalNanos = (long) (1_000_000_000L / ratePerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * (Math.max(burst, 1) - 1);
+        this.theoreticalArrivalTime = new AtomicLong(nowNanos);
+    }
+
+    public boolean tryAcquire(long nowNanos) {
+        while (true) {
+            long tat = theoreticalArrivalTime.get();
+            long start = tat - nowNanos > 0 ? tat : nowNanos;
+
+            if (start - nowNanos > burstToleranceNanos) {
+                return false;
+            }
+
+            if (theoreticalArrivalTime.compareAndSet(tat, start + emissionIntervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    // Once the theoretical arrival time is back within the burst tolerance, the next acquire succeeds
+    public long nanosUntilAvailable(long nowNanos) {
+        return Math.max(0, theoreticalArrivalTime.get() - burstToleranceNanos - nowNanos);
+    }
+
+    // A bucket that refilled completely behaves like a new one, so dropping it loses nothing
+    public boolean isIdle(long nowNanos, long idleNanos) {
+        return nowNanos - theoreticalArrivalTime.get() > idleNanos;
+    }
+}
@@ -7,16 +7,68 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 
 @Repository
-public interface OptionRepository extends JpaRepository<Option, String> {
+public interface OptionRepository extends JpaRepository<Option, UUID> {
     @Query("SELECT o FROM Option o WHERE o.poll.id IN :pollIds")
-    List<Option> findByPollIds(@Param("pollIds") List<String> pollIds);
+    List<Option> findByPollIds(@Param("pollIds") List<UUID> pollIds);
 
-    int countByPollId(String pollId);
+    int countByPollId(UUID pollId);
+
+    @Query(value = "UPDATE options SET votes = votes + 1 WHERE id = :optionId RETURNING votes", nativeQuery = true)
+    int incrementVotes(@Param("optionId") UUID optionId);
+
+    @Modifying
+    @Query("UPDATE Option o SET o.votes = o.votes + :delta WHERE o.id = :optionId")
+    void addVotes(@Param("optionId") UUID optionId, @Param("delta") int delta);
+
+    @Query(value = """
+        WITH bumped AS (
+            INSERT INTO option_vote_shards (option_id, shard, votes)
+            VALUES (:optionId, :shard, 1)
+            ON CONFLICT (option_id, shard) DO UPDATE SET votes = option_vote_shards.votes + 1
+            RETURNING votes
+        )
+        SELECT CAST((SELECT votes FROM options WHERE id = :optionId)
+            + (SELECT COALESCE(SUM(votes), 0) FROM option_vote_shards WHERE option_id = :optionId AND shard <> :shard)
+            + (SELECT votes FROM bumped) AS integer)
+    """, nativeQuery = true)
+    int incrementShardedVotes(@Param("optionId") UUID optionId, @Param("shard") int shard);
+
+    // One statement, so a roll-up moving shard rows into options.votes cannot be seen half done
+    @Query(value = """
+        SELECT o.id AS "optionId",
+            CAST(o.votes + COALESCE((SELECT SUM(s.votes) FROM option_vote_shards s WHERE s.option_id = o.id), 0) AS integer) AS "votes"
+        FROM options o
+        WHERE o.id IN (:optionIds)
+    """, nativeQuery = true)
+    List<TotalVotes> findTotalVotes(@Param("optionIds") Collection<UUID> optionIds);
 
     @Modifying
-    @Query("UPDATE Option o SET o.votes = o.votes + 1 WHERE o.id = :optionId")
-    void incrementVotes(@Param("optionId") String optionId);
+    @Query(value = """
+        INSERT INTO option_vote_shards (option_id, shard, votes)
+        VALUES (:optionId, :shard, :delta)
+        ON CONFLICT (option_id, shard) DO UPDATE SET votes = option_vote_shards.votes + EXCLUDED.votes
+    """, nativeQuery = true)
+    void addShardedVotes(@Param("optionId") UUID optionId, @Param("shard") int shard, @Param("delta") int delta);
+
+    @Modifying
+    @Query(value = """
+        WITH drained AS (
+            DELETE FROM option_vote_shards RETURNING option_id, votes
+        )
+        UPDATE options o SET votes = o.votes + d.total
+        FROM (SELECT option_id, SUM(votes) AS total FROM drained GROUP BY option_id) d
+        WHERE o.id = d.option_id
+    """, nativeQuery = true)
+    int rollUpShardedVotes();
+
+    interface TotalVotes {
+        UUID getOptionId();
+
+        int getVotes();
+    }
 }
@@ -5,43 +5,54 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.Optional;
+import java.util.UUID;
 
 import static jakarta.persistence.LockModeType.PESSIMISTIC_WRITE;
 
 @Repository
-public interface PollRepository extends JpaRepository<Poll, String> {
+public interface PollRepository extends JpaRepository<Poll, UUID> {
 
     @Lock(PESSIMISTIC_WRITE)
     @Query("SELECT p FROM Poll p WHERE p.id = :pollId")
-    Optional<Poll> findByIdWithLock(@Param("pollId") String pollId);
+    Optional<Poll> findByIdWithLock(@Param("pollId") UUID pollId);
 
     @Query("""
         SELECT p FROM Poll p
-        WHERE CURRENT_TIMESTAMP < p.startsAt
+        WHERE :now < p.startsAt
     """)
-    Page<Poll> findAllNotStarted(Pageable pageable);
+    Page<Poll> findAllNotStarted(@Param("now") Instant now, Pageable pageable);
 
     @Query("""
         SELECT p FROM Poll p
-        WHERE CURRENT_TIMESTAMP >= p.startsAt AND CURRENT_TIMESTAMP < p.endsAt
+        WHERE :now >= p.startsAt AND :now < p.endsAt
     """)
-    Page<Poll> findAllInProgress(Pageable pageable);
+    Page<Poll> findAllInProgress(@Param("now") Instant now, Pageable pageable);
 
     @Query("""
         SELECT p FROM Poll p
-        WHERE CURRENT_TIMESTAMP >= p.endsAt
+        WHERE :now >= p.endsAt
     """)
-    Page<Poll> findAllFinished(Pageable pageable);
+    Page<Poll> findAllFinished(@Param("now") Instant now, Pageable pageable);
 
     @Query("""
         SELECT p FROM Poll p
         LEFT JOIN FETCH p.options
         WHERE p.id = :pollId
     """)
-    Optional<Poll> findByIdWithOptions(String pollId);
+    Optional<Poll> findByIdWithOptions(UUID pollId);
+
+    @Modifying
+    @Query(value = """
+        INSERT INTO poll_voters (poll_id, voter_token)
+        VALUES (:pollId, :voterToken)
+        ON CONFLICT DO NOTHING
+    """, nativeQuery = true)
+    int registerVoter(@Param("pollId") UUID pollId, @Param("voterToken") String voterToken);
 }
\ No newline at end of file
@@ -0,0 +1,6 @@
+package com.smlaurindo.realtime_polls.service;
+
+public enum CounterMode {
+    SINGLE,
+    SHARDED,
+}
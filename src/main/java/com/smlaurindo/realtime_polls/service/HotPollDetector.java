@@ -0,0 +1,137 @@
+package com.smlaurindo.realtime_polls.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+@Slf4j
+@Component
+public class HotPollDetector {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, PollRate> rates = new ConcurrentHashMap<>();
+    private final Map<String, Gauge> hotPollGauges = new ConcurrentHashMap<>();
+
+    @Value("${app.votes.hot-poll.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.votes.hot-poll.window-seconds:10}")
+    private int windowSeconds;
+
+    @Value("${app.votes.hot-poll.hot-threshold:200}")
+    private double hotThreshold;
+
+    @Value("${app.votes.hot-poll.cool-threshold:50}")
+    private double coolThreshold;
+
+    public HotPollDetector(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("polls.hot.count", hotPollGauges, Map::size)
+                .description("Polls currently in buffered write mode")
+                .register(meterRegistry);
+    }
+
+    public WriteMode record(String pollId) {
+        if (!enabled) return WriteMode.DIRECT;
+
+        long nowSecond = currentSecond();
+        var rate = rates.computeIfAbsent(pollId, _ -> new PollRate(windowSeconds));
+
+        rate.increment(nowSecond);
+
+        if (rate.mode == WriteMode.DIRECT && rate.perSecond(nowSecond) >= hotThreshold) {
+            transition(pollId, rate, WriteMode.BUFFERED);
+        }
+
+        return rate.mode;
+    }
+
+    @Scheduled(fixedDelayString = "${app.votes.hot-poll.evaluation-interval-ms:1000}")
+    public void evaluate() {
+        long nowSecond = currentSecond();
+
+        rates.forEach((pollId, rate) -> {
+            double perSecond = rate.perSecond(nowSecond);
+
+            // Hysteresis between the two thresholds keeps a poll from flapping between modes
+            if (rate.mode == WriteMode.BUFFERED && perSecond < coolThreshold) {
+                transition(pollId, rate, WriteMode.DIRECT);
+            }
+
+            if (rate.mode == WriteMode.DIRECT && perSecond == 0) {
+                rates.remove(pollId, rate);
+            }
+        });
+    }
+
+    private void transition(String pollId, PollRate rate, WriteMode mode) {
+        synchronized (rate) {
+            if (rate.mode == mode) return;
+            rate.mode = mode;
+        }
+
+        meterRegistry.counter("polls.write.mode.transitions", "mode", mode.name()).increment();
+
+        if (mode == WriteMode.BUFFERED) {
+            hotPollGauges.put(pollId, Gauge.builder("polls.hot.votes.rate", rate, r -> r.perSecond(currentSecond()))
+                    .description("Votes per second of a poll in buffered write mode")
+                    .tag("poll", pollId)
+                    .register(meterRegistry));
+        } else {
+            var gauge = hotPollGauges.remove(pollId);
+            if (gauge != null) meterRegistry.remove(gauge);
+        }
+
+        log.info("Poll {} switched to {} write mode", pollId, mode);
+    }
+
+    private static long currentSecond() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static final class PollRate {
+
+        // Ring of per-second counters; slot resets are racy, which only makes the rate approximate
+        private final AtomicLongArray seconds;
+        private final AtomicLongArray counts;
+
+        private volatile WriteMode mode = WriteMode.DIRECT;
+
+        private PollRate(int windowSeconds) {
+            this.seconds = new AtomicLongArray(windowSeconds);
+            this.counts = new AtomicLongArray(windowSeconds);
+        }
+
+        private void increment(long nowSecond) {
+            int slot = (int) (nowSecond % seconds.length());
+            long second = seconds.get(slot);
+
+            if (second != nowSecond && seconds.compareAndSet(slot, second, nowSecond)) {
+                counts.set(slot, 0);
+            }
+
+            counts.incrementAndGet(slot);
+        }
+
+        private double perSecond(long nowSecond) {
+            long total = 0;
+
+            for (int slot = 0; slot < seconds.length(); slot++) {
+                if (nowSecond - seconds.get(slot) < seconds.length()) {
+                    total += counts.get(slot);
+                }
+            }
+
+            return (double) total / seconds.length();
+        }
+    }
+}
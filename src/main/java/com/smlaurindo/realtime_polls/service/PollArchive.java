@@ -0,0 +1,223 @@
+package com.smlaurindo.realtime_polls.service;
+
+import com.smlaurindo.realtime_polls.domain.PollStatus;
+import com.smlaurindo.realtime_polls.dto.response.GetPollResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+@Slf4j
+@Component
+public class PollArchive {
+
+    // Any constant works; it only keeps two instances from archiving the same polls at once
+    private static final long ARCHIVE_LOCK = 0x706f6c6c73L;
+
+    private static final String SELECT_BATCH = """
+            SELECT id, ends_at FROM polls
+            WHERE ends_at < ?
+            ORDER BY ends_at
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    private static final String CREATE_PARTITION = """
+            CREATE TABLE IF NOT EXISTS %1$s_y%2$04dm%3$02d PARTITION OF %1$s
+            FOR VALUES FROM ('%4$s') TO ('%5$s')
+            """;
+
+    private static final String ARCHIVE_POLLS = """
+            INSERT INTO polls_archive (id, question, starts_at, ends_at)
+            SELECT id, question, starts_at, ends_at FROM polls WHERE id = ANY (?)
+            """;
+
+    // Shard rows not rolled up yet are folded into the archived count
+    private static final String ARCHIVE_OPTIONS = """
+            INSERT INTO options_archive (id, poll_id, poll_ends_at, text, votes)
+            SELECT o.id, o.poll_id, p.ends_at, o.text,
+                   o.votes + COALESCE((SELECT SUM(s.votes) FROM option_vote_shards s WHERE s.option_id = o.id), 0)
+            FROM options o
+            JOIN polls p ON p.id = o.poll_id
+            WHERE p.id = ANY (?)
+            """;
+
+    // Vote history is kept for GET /polls/{pollId}/history; it no longer changes once a poll has finished
+    private static final String ARCHIVE_VOTE_BUCKETS = """
+            INSERT INTO vote_buckets_archive (option_id, poll_id, poll_ends_at, resolution, bucket_start, votes)
+            SELECT b.option_id, b.poll_id, p.ends_at, b.resolution, b.bucket_start, b.votes
+            FROM vote_buckets b
+            JOIN polls p ON p.id = b.poll_id
+            WHERE p.id = ANY (?)
+            """;
+
+    // Cascades to options, shards, voters and vote history, all of them copied above except the voters
+    private static final String DELETE_POLLS = "DELETE FROM polls WHERE id = ANY (?)";
+
+    private static final String FIND_ARCHIVED_STARTS_AT = "SELECT starts_at FROM polls_archive WHERE id = ?";
+
+    private static final String FIND_ARCHIVED = """
+            SELECT p.id, p.question, p.starts_at, p.ends_at, o.id AS option_id, o.text, o.votes
+            FROM polls_archive p
+            JOIN options_archive o ON o.poll_id = p.id AND o.poll_ends_at = p.ends_at
+            WHERE p.id = ?
+            ORDER BY o.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final VoterIndex voterIndex;
+    private final PollTallies pollTallies;
+    private final Clock clock;
+
+    @Value("${app.polls.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.polls.archive.finished-for:30d}")
+    private Duration finishedFor;
+
+    @Value("${app.polls.archive.batch-size:500}")
+    private int batchSize;
+
+    public PollArchive(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            VoterIndex voterIndex,
+            PollTallies pollTallies,
+            Clock clock
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.voterIndex = voterIndex;
+        this.pollTallies = pollTallies;
+        this.clock = clock;
+    }
+
+    @Scheduled(fixedDelayString = "${app.polls.archive.interval-ms:3600000}")
+    public void archive() {
+        if (!enabled) return;
+
+        var cutoff = OffsetDateTime.ofInstant(clock.instant().minus(finishedFor), ZoneOffset.UTC);
+        int total = 0;
+
+        while (true) {
+            // One transaction per batch, so the rows locked and the WAL written stay bounded
+            List<UUID> archived = transactionTemplate.execute(_ -> archiveBatch(cutoff));
+
+            if (archived == null || archived.isEmpty()) break;
+
+            // Only once the batch has committed, so a rolled back batch keeps its polls' in-memory state
+            archived.forEach(pollId -> {
+                voterIndex.evict(pollId.toString());
+                pollTallies.evict(pollId.toString());
+            });
+
+            total += archived.size();
+            meterRegistry.counter("polls.archive.archived").increment(archived.size());
+
+            if (archived.size() < batchSize) break;
+        }
+
+        if (total > 0) {
+            log.info("Archived {} polls finished before {}", total, cutoff);
+        }
+    }
+
+    public Optional<Instant> findArchivedStartsAt(UUID pollId) {
+        return jdbcTemplate.query(FIND_ARCHIVED_STARTS_AT, (rs, _) -> rs.getObject("starts_at", OffsetDateTime.class).toInstant(), pollId)
+                .stream()
+                .findFirst();
+    }
+
+    public Optional<GetPollResponse> findArchived(UUID pollId) {
+        List<ArchivedRow> rows = jdbcTemplate.query(FIND_ARCHIVED, (rs, _) -> new ArchivedRow(
+                rs.getString("id"),
+                rs.getString("question"),
+                rs.getObject("starts_at", OffsetDateTime.class).toInstant().toString(),
+                rs.getObject("ends_at", OffsetDateTime.class).toInstant().toString(),
+                new GetPollResponse.OptionResponse(rs.getString("option_id"), rs.getString("text"), rs.getInt("votes"))
+        ), pollId);
+
+        if (rows.isEmpty()) return Optional.empty();
+
+        Map<String, Integer> votesByOption = new LinkedHashMap<>();
+        rows.forEach(row -> votesByOption.put(row.option().id(), row.option().votes()));
+
+        var poll = rows.getFirst();
+
+        return Optional.of(new GetPollResponse(
+                poll.id(),
+                poll.question(),
+                PollStatus.FINISHED,
+                poll.startsAt(),
+                poll.endsAt(),
+                rows.stream().map(ArchivedRow::option).toList(),
+                PollTallies.summaryOf(votesByOption)
+        ));
+    }
+
+    private List<UUID> archiveBatch(OffsetDateTime cutoff) {
+        Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, ARCHIVE_LOCK);
+
+        if (!Boolean.TRUE.equals(locked)) return List.of();
+
+        List<UUID> pollIds = new ArrayList<>();
+        Set<YearMonth> months = new TreeSet<>();
+
+        jdbcTemplate.query(SELECT_BATCH, rs -> {
+            pollIds.add(rs.getObject("id", UUID.class));
+            months.add(YearMonth.from(rs.getObject("ends_at", OffsetDateTime.class).withOffsetSameInstant(ZoneOffset.UTC)));
+        }, cutoff, batchSize);
+
+        if (pollIds.isEmpty()) return pollIds;
+
+        months.forEach(this::createPartitions);
+
+        jdbcTemplate.update(ARCHIVE_POLLS, ps -> ps.setArray(1, uuidArray(ps.getConnection(), pollIds)));
+        jdbcTemplate.update(ARCHIVE_OPTIONS, ps -> ps.setArray(1, uuidArray(ps.getConnection(), pollIds)));
+        jdbcTemplate.update(ARCHIVE_VOTE_BUCKETS, ps -> ps.setArray(1, uuidArray(ps.getConnection(), pollIds)));
+        jdbcTemplate.update(DELETE_POLLS, ps -> ps.setArray(1, uuidArray(ps.getConnection(), pollIds)));
+
+        return pollIds;
+    }
+
+    // One partition per month of ends_at, created when the first poll of that month is archived
+    private void createPartitions(YearMonth month) {
+        var from = month.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+        var to = month.plusMonths(1).atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+
+        for (var table : List.of("polls_archive", "options_archive", "vote_buckets_archive")) {
+            jdbcTemplate.execute(CREATE_PARTITION.formatted(table, month.getYear(), month.getMonthValue(), from, to));
+        }
+    }
+
+    private static Array uuidArray(Connection connection, List<UUID> ids) throws SQLException {
+        return connection.createArrayOf("uuid", ids.toArray());
+    }
+
+    private record ArchivedRow(String id, String question, String startsAt, String endsAt, GetPollResponse.OptionResponse option) {}
+}
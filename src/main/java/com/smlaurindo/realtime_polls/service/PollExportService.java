@@ -0,0 +1,175 @@
+package com.smlaurindo.realtime_polls.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.smlaurindo.realtime_polls.domain.PollStatus;
+import com.smlaurindo.realtime_polls.dto.response.GetPollResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class PollExportService {
+
+    private static final String EXPORT_QUERY = """
+            SELECT p.id AS poll_id, p.question, p.starts_at, p.ends_at, o.id AS option_id, o.text,
+                   o.votes + COALESCE((SELECT SUM(s.votes) FROM option_vote_shards s WHERE s.option_id = o.id), 0) AS votes
+            FROM polls p
+            LEFT JOIN options o ON o.poll_id = p.id
+            WHERE %s
+            ORDER BY p.id, o.id
+            """;
+
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final Clock clock;
+
+    @Value("${app.polls.export.fetch-size:1000}")
+    private int fetchSize;
+
+    public void exportPolls(PollStatus status, OffsetDateTime from, OffsetDateTime to, OutputStream out) throws IOException {
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+
+        // The filter and the status written on each line are evaluated at the same instant
+        var now = clock.instant();
+        var nowParam = OffsetDateTime.ofInstant(now, ZoneOffset.UTC);
+
+        switch (status) {
+            case NOT_STARTED -> {
+                conditions.add("? < p.starts_at");
+                params.add(nowParam);
+            }
+            case IN_PROGRESS -> {
+                conditions.add("? >= p.starts_at AND ? < p.ends_at");
+                params.add(nowParam);
+                params.add(nowParam);
+            }
+            case FINISHED -> {
+                conditions.add("? >= p.ends_at");
+                params.add(nowParam);
+            }
+            case null -> {}
+        }
+
+        if (from != null) {
+            conditions.add("p.starts_at >= ?");
+            params.add(from);
+        }
+
+        if (to != null) {
+            conditions.add("p.starts_at < ?");
+            params.add(to);
+        }
+
+        String sql = EXPORT_QUERY.formatted(conditions.isEmpty() ? "TRUE" : String.join(" AND ", conditions));
+
+        // The PostgreSQL driver only streams with a cursor when auto-commit is off, hence the transaction
+        var transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+
+        try (SequenceWriter writer = objectMapper.writerFor(GetPollResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n")
+                .writeValues(out)) {
+
+            var lines = new PollLines(writer, now);
+
+            transactionTemplate.executeWithoutResult(_ -> jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(sql);
+                statement.setFetchSize(fetchSize);
+
+                for (int i = 0; i < params.size(); i++) {
+                    statement.setObject(i + 1, params.get(i));
+                }
+
+                return statement;
+            }, lines));
+
+            lines.finish();
+        }
+    }
+
+    // Rows arrive ordered by poll, so only the options of the poll being written are kept in memory
+    private static final class PollLines implements RowCallbackHandler {
+
+        private final SequenceWriter writer;
+        private final Instant now;
+
+        private String pollId;
+        private String question;
+        private PollStatus status;
+        private String startsAt;
+        private String endsAt;
+        private final List<GetPollResponse.OptionResponse> options = new ArrayList<>();
+
+        private PollLines(SequenceWriter writer, Instant now) {
+            this.writer = writer;
+            this.now = now;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            String rowPollId = rs.getString("poll_id");
+
+            if (!rowPollId.equals(pollId)) {
+                finish();
+
+                var startsAtValue = rs.getObject("starts_at", OffsetDateTime.class).toInstant();
+                var endsAtValue = rs.getObject("ends_at", OffsetDateTime.class).toInstant();
+
+                pollId = rowPollId;
+                question = rs.getString("question");
+                status = PollStatus.of(startsAtValue, endsAtValue, now);
+                startsAt = startsAtValue.toString();
+                endsAt = endsAtValue.toString();
+            }
+
+            String optionId = rs.getString("option_id");
+
+            if (optionId != null) {
+                options.add(new GetPollResponse.OptionResponse(optionId, rs.getString("text"), rs.getInt("votes")));
+            }
+        }
+
+        private void finish() {
+            if (pollId == null) return;
+
+            try {
+                Map<String, Integer> votesByOption = new LinkedHashMap<>();
+                options.forEach(option -> votesByOption.put(option.id(), option.votes()));
+
+                // Not cached in PollTallies: an export touches every poll once and would only evict live tallies
+                var summary = PollTallies.summaryOf(votesByOption);
+
+                writer.write(new GetPollResponse(pollId, question, status, startsAt, endsAt, List.copyOf(options), summary));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            pollId = null;
+            options.clear();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.smlaurindo.realtime_polls.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smlaurindo.realtime_polls.domain.TimeOrderedUuid;
+import com.smlaurindo.realtime_polls.dto.request.CreatePollRequest;
+import com.smlaurindo.realtime_polls.dto.response.ImportPollsResponse;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PollImportService {
+
+    private static final String INSERT_POLL = "INSERT INTO polls (id, question, starts_at, ends_at) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_OPTION = "INSERT INTO options (id, text, votes, poll_id) VALUES (?, ?, 0, ?)";
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.polls.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.polls.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    // Accepts NDJSON or a JSON array; rows are parsed one at a time, so the upload is never held in memory
+    public ImportPollsResponse importPolls(InputStream body) throws IOException {
+        var result = new ImportResult();
+        List<PendingPoll> chunk = new ArrayList<>(chunkSize);
+
+        try (MappingIterator<CreatePollRequest> rows = objectMapper.readerFor(CreatePollRequest.class).readValues(body)) {
+            long row = 0;
+
+            while (true) {
+                CreatePollRequest request;
+                row++;
+
+                try {
+                    if (!rows.hasNextValue()) break;
+                    request = rows.nextValue();
+                } catch (JsonParseException e) {
+                    // The parser cannot resync after malformed JSON, so the rest of the upload is unreadable
+                    result.fail(row, Map.of("row", "Malformed JSON: " + e.getOriginalMessage()));
+                    break;
+                } catch (JsonProcessingException e) {
+                    result.fail(row, Map.of("row", "Invalid value: " + e.getOriginalMessage()));
+                    continue;
+                }
+
+                // A literal null in a JSON array; the validator would throw on it and abort the whole import
+                if (request == null) {
+                    result.fail(row, Map.of("row", "The row must be a poll object"));
+                    continue;
+                }
+
+                // Every row is rejected on its own here, so nothing that can fail the insert reaches a chunk
+                var violations = validator.validate(request);
+
+                if (!violations.isEmpty()) {
+                    result.fail(row, violations.stream().collect(Collectors.toMap(
+                            violation -> violation.getPropertyPath().toString().isEmpty()
+                                    ? "row"
+                                    : violation.getPropertyPath().toString(),
+                            ConstraintViolation::getMessage,
+                            (first, _) -> first
+                    )));
+                    continue;
+                }
+
+                chunk.add(new PendingPoll(row, TimeOrderedUuid.generate(), request));
+
+                if (chunk.size() >= chunkSize) {
+                    flush(chunk, result);
+                }
+            }
+        }
+
+        flush(chunk, result);
+
+        return new ImportPollsResponse(result.imported, result.failed, result.errors);
+    }
+
+    private void flush(List<PendingPoll> chunk, ImportResult result) {
+        if (chunk.isEmpty()) return;
+
+        try {
+            // One transaction per chunk, so a failing chunk does not roll back the chunks already imported
+            transactionTemplate.executeWithoutResult(_ -> insert(chunk));
+            result.imported += chunk.size();
+        } catch (Exception e) {
+            log.error("Failed to import chunk of {} polls starting at row {}: {}", chunk.size(), chunk.getFirst().row(), e.getMessage());
+            chunk.forEach(pending -> result.fail(pending.row(), Map.of("row", "The poll could not be saved")));
+        }
+
+        chunk.clear();
+    }
+
+    private void insert(List<PendingPoll> chunk) {
+        jdbcTemplate.batchUpdate(INSERT_POLL, chunk, chunk.size(), (statement, pending) -> {
+            statement.setObject(1, pending.id());
+            statement.setString(2, pending.request().question());
+            statement.setObject(3, pending.request().startsAt());
+            statement.setObject(4, pending.request().endsAt());
+        });
+
+        List<Object[]> options = new ArrayList<>();
+
+        for (var pending : chunk) {
+            for (String text : pending.request().options()) {
+                options.add(new Object[]{TimeOrderedUuid.generate(), text, pending.id()});
+            }
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_OPTION, options);
+    }
+
+    private record PendingPoll(long row, UUID id, CreatePollRequest request) {}
+
+    private final class ImportResult {
+
+        private long imported;
+        private long failed;
+        private final List<ImportPollsResponse.RowError> errors = new ArrayList<>();
+
+        private void fail(long row, Map<String, String> rowErrors) {
+            failed++;
+
+            // Only the first errors are reported, so a broken upload cannot grow the response without bound
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ImportPollsResponse.RowError(row, rowErrors));
+            }
+        }
+    }
+}
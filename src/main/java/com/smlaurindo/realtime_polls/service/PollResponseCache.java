@@ -0,0 +1,216 @@
+package com.smlaurindo.realtime_polls.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.smlaurindo.realtime_polls.dto.response.GetPollResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+@Component
+public class PollResponseCache {
+
+    private static final int VERSION_STRIPES = 4096;
+
+    private final ObjectWriter responseWriter;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Bumped on every change to a poll, so a load that raced with the change is not cached
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    @Value("${app.polls.response-cache.enabled:true}")
+    private boolean enabled;
+
+    // Bounds how long a vote counted by another instance can go unseen here
+    @Value("${app.polls.response-cache.max-age-ms:1000}")
+    private long maxAgeMs;
+
+    @Value("${app.polls.response-cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${app.polls.response-cache.gzip-min-bytes:1024}")
+    private int gzipMinBytes;
+
+    public PollResponseCache(ObjectMapper objectMapper, MeterRegistry meterRegistry, Clock clock) {
+        this.responseWriter = objectMapper.writerFor(GetPollResponse.class);
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+
+        Gauge.builder("polls.response-cache.entries", entries, Map::size)
+                .description("Polls with a serialized GET response cached")
+                .register(meterRegistry);
+    }
+
+    public Body get(String pollId, Supplier<GetPollResponse> loader) {
+        // Invalidations use the canonical form, so a request spelling the id differently must not hit a stale entry
+        var key = canonical(pollId);
+
+        if (!enabled || key == null) {
+            return serialize(loader.get());
+        }
+
+        long now = System.nanoTime();
+        var cached = entries.get(key);
+
+        if (cached != null && now - cached.expiresAt < 0) {
+            meterRegistry.counter("polls.response-cache.requests", "result", "hit").increment();
+            return cached.body();
+        }
+
+        meterRegistry.counter("polls.response-cache.requests", "result", "miss").increment();
+
+        int stripe = stripe(key);
+        long version = versions.get(stripe);
+
+        var response = loader.get();
+        var loaded = new Entry(response, now + TimeUnit.MILLISECONDS.toNanos(timeToLiveMs(response)));
+
+        if (entries.size() < maxEntries) {
+            entries.compute(key, (_, current) -> versions.get(stripe) == version ? loaded : current);
+        }
+
+        return loaded.body();
+    }
+
+    // Applied after the vote commits; the counts of the other options are kept as cached
+    public void patchVotes(String pollId, String optionId, int votes) {
+        entries.compute(pollId, (_, current) -> {
+            versions.incrementAndGet(stripe(pollId));
+            return current != null ? current.withVotes(optionId, votes) : null;
+        });
+    }
+
+    public void invalidate(String pollId) {
+        entries.compute(pollId, (_, _) -> {
+            versions.incrementAndGet(stripe(pollId));
+            return null;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.polls.response-cache.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> now - entry.expiresAt >= 0);
+    }
+
+    // The status is part of the body, so an entry never outlives the next start or end of its poll
+    private long timeToLiveMs(GetPollResponse response) {
+        Instant boundary = switch (response.status()) {
+            case NOT_STARTED -> Instant.parse(response.startsAt());
+            case IN_PROGRESS -> Instant.parse(response.endsAt());
+            case FINISHED -> null;
+        };
+
+        if (boundary == null) return maxAgeMs;
+
+        return Math.min(maxAgeMs, Duration.between(clock.instant(), boundary).toMillis());
+    }
+
+    private static String canonical(String pollId) {
+        try {
+            return UUID.fromString(pollId).toString();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static int stripe(String pollId) {
+        return Math.floorMod(pollId.hashCode(), VERSION_STRIPES);
+    }
+
+    private Body serialize(GetPollResponse response) {
+        byte[] json;
+
+        try {
+            json = responseWriter.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize poll " + response.id(), e);
+        }
+
+        return new Body(json, json.length >= gzipMinBytes ? gzip(json) : null);
+    }
+
+    private static byte[] gzip(byte[] json) {
+        var compressed = new ByteArrayOutputStream(json.length / 2);
+
+        try (var gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return compressed.toByteArray();
+    }
+
+    public record Body(byte[] json, byte[] gzip) {}
+
+    private final class Entry {
+
+        private final GetPollResponse response;
+        private final long expiresAt;
+        private volatile Body body;
+
+        private Entry(GetPollResponse response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+
+        // Serialized on first read, so a burst of votes between two reads costs one serialization
+        private Body body() {
+            var serialized = body;
+
+            if (serialized == null) {
+                serialized = serialize(response);
+                body = serialized;
+            }
+
+            return serialized;
+        }
+
+        private Entry withVotes(String optionId, int votes) {
+            Map<String, Integer> votesByOption = new LinkedHashMap<>();
+
+            var options = response.options().stream()
+                    .map(option -> {
+                        // Vote commits can be reported out of order; a count never goes down
+                        int optionVotes = option.id().equals(optionId) ? Math.max(option.votes(), votes) : option.votes();
+                        votesByOption.put(option.id(), optionVotes);
+                        return new GetPollResponse.OptionResponse(option.id(), option.text(), optionVotes);
+                    })
+                    .toList();
+
+            var patched = new GetPollResponse(
+                    response.id(),
+                    response.question(),
+                    response.status(),
+                    response.startsAt(),
+                    response.endsAt(),
+                    options,
+                    PollTallies.summaryOf(votesByOption)
+            );
+
+            return new Entry(patched, expiresAt);
+        }
+    }
+}
@@ -8,19 +8,26 @@ import com.smlaurindo.realtime_polls.dto.request.CreatePollRequest;
 import com.smlaurindo.realtime_polls.dto.request.EditPollRequest;
 import com.smlaurindo.realtime_polls.dto.response.*;
 import com.smlaurindo.realtime_polls.observer.PollOptionVotedEvent;
+import com.smlaurindo.realtime_polls.profiling.VotePhaseEvent;
 import com.smlaurindo.realtime_polls.repository.OptionRepository;
 import com.smlaurindo.realtime_polls.repository.PollRepository;
 import com.smlaurindo.realtime_polls.service.exception.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Clock;
 import java.time.Instant;
 import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,6 +37,18 @@ public class PollService {
     private final PollRepository pollRepository;
     private final OptionRepository optionRepository;
     private final ApplicationEventPublisher eventPublisher;
+    private final VoterIndex voterIndex;
+    private final HotPollDetector hotPollDetector;
+    private final VoteBuffer voteBuffer;
+    private final VoteCounter voteCounter;
+    private final PollTallies pollTallies;
+    private final VoteHistoryRecorder voteHistoryRecorder;
+    private final PollResponseCache pollResponseCache;
+    private final PollArchive pollArchive;
+    private final Clock clock;
+
+    @Value("${app.votes.one-per-voter:false}")
+    private boolean onePerVoter;
 
     @Transactional
     public CreatePollResponse createPoll(CreatePollRequest request) {
@@ -53,16 +72,16 @@ public class PollService {
         poll.setOptions(options);
 
         return new CreatePollResponse(
-                poll.getId(),
+                poll.getId().toString(),
                 poll.getQuestion(),
-                poll.getStatus(),
+                poll.getStatus(clock.instant()),
                 poll.getStartsAt().toString(),
                 poll.getEndsAt().toString(),
                 poll.getOptions().stream()
                         .map(option -> new CreatePollResponse.OptionResponse(
-                                option.getId(),
+                                option.getId().toString(),
                                 option.getText(),
-                                option.getVotes()
+                                option.getTotalVotes()
                         ))
                         .toList()
         );
@@ -70,36 +89,41 @@ public class PollService {
 
     @Transactional(readOnly = true)
     public PageResponse<ListPollsResponse> listPolls(PollStatus status, Pageable pageable) {
+        // The filter and every status in the page are evaluated at the same instant
+        var now = clock.instant();
+
         Page<Poll> pollPage = switch (status) {
-            case NOT_STARTED -> pollRepository.findAllNotStarted(pageable);
-            case IN_PROGRESS -> pollRepository.findAllInProgress(pageable);
-            case FINISHED -> pollRepository.findAllFinished(pageable);
+            case NOT_STARTED -> pollRepository.findAllNotStarted(now, pageable);
+            case IN_PROGRESS -> pollRepository.findAllInProgress(now, pageable);
+            case FINISHED -> pollRepository.findAllFinished(now, pageable);
             case null -> pollRepository.findAll(pageable);
         };
 
-        List<String> pollIds = pollPage.stream()
+        List<UUID> pollIds = pollPage.stream()
                 .map(Poll::getId)
                 .toList();
 
         List<Option> options = optionRepository.findByPollIds(pollIds);
+        voteCounter.loadShardVotes(options);
 
-        Map<String, List<Option>> optionsByPollId = options.stream()
+        Map<UUID, List<Option>> optionsByPollId = options.stream()
                 .collect(Collectors.groupingBy(option -> option.getPoll().getId()));
 
         var page = pollPage.map((poll) -> new ListPollsResponse(
-                poll.getId(),
+                poll.getId().toString(),
                 poll.getQuestion(),
-                poll.getStatus(),
+                poll.getStatus(now),
                 poll.getStartsAt().toString(),
                 poll.getEndsAt().toString(),
                 optionsByPollId.getOrDefault(poll.getId(), List.of())
                         .stream()
                         .map(option -> new ListPollsResponse.OptionResponse(
-                                option.getId(),
+                                option.getId().toString(),
                                 option.getText(),
-                                option.getVotes()
+                                option.getTotalVotes()
                         ))
-                        .toList()
+                        .toList(),
+                summarize(poll, optionsByPollId.getOrDefault(poll.getId(), List.of()))
         ));
 
         return PageResponse.of(page);
@@ -107,31 +131,43 @@ public class PollService {
 
     @Transactional(readOnly = true)
     public GetPollResponse getPoll(String pollId) {
-        var poll = pollRepository.findByIdWithOptions(pollId)
-                .orElseThrow(() -> new ResourceNotFoundException("Poll with id " + pollId + " does not exist."));
+        var pollUuid = parseId(pollId, "Poll");
+        var found = pollRepository.findByIdWithOptions(pollUuid);
+
+        if (found.isEmpty()) {
+            // Long-finished polls are moved out of the hot tables but stay readable by id
+            return pollArchive.findArchived(pollUuid)
+                    .orElseThrow(() -> new ResourceNotFoundException("Poll with id " + pollId + " does not exist."));
+        }
+
+        var poll = found.get();
+        voteCounter.loadShardVotes(poll.getOptions());
 
         return new GetPollResponse(
-                poll.getId(),
+                poll.getId().toString(),
                 poll.getQuestion(),
-                poll.getStatus(),
+                poll.getStatus(clock.instant()),
                 poll.getStartsAt().toString(),
                 poll.getEndsAt().toString(),
                 poll.getOptions().stream()
                         .map(option -> new GetPollResponse.OptionResponse(
-                                option.getId(),
+                                option.getId().toString(),
                                 option.getText(),
-                                option.getVotes()
+                                option.getTotalVotes()
                         ))
-                        .toList()
+                        .toList(),
+                summarize(poll, poll.getOptions())
         );
     }
 
     @Transactional
     public EditPollResponse editPoll(String pollId, EditPollRequest request) {
-        var poll = pollRepository.findByIdWithOptions(pollId)
+        var poll = pollRepository.findByIdWithOptions(parseId(pollId, "Poll"))
                 .orElseThrow(() -> new ResourceNotFoundException("Poll with id " + pollId + " does not exist."));
 
-        if (poll.getStatus() != PollStatus.NOT_STARTED) {
+        var now = clock.instant();
+
+        if (poll.getStatus(now) != PollStatus.NOT_STARTED) {
             throw new PollAlreadyStartedException("Poll cannot be edited after it has started.");
         }
 
@@ -150,17 +186,19 @@ public class PollService {
 
         pollRepository.save(poll);
 
+        invalidateResponseAfterCommit(poll.getId());
+
         return new EditPollResponse(
-                poll.getId(),
+                poll.getId().toString(),
                 poll.getQuestion(),
-                poll.getStatus(),
+                poll.getStatus(now),
                 poll.getStartsAt().toString(),
                 poll.getEndsAt().toString(),
                 poll.getOptions().stream()
                         .map(option -> new EditPollResponse.OptionResponse(
-                                option.getId(),
+                                option.getId().toString(),
                                 option.getText(),
-                                option.getVotes()
+                                option.getTotalVotes()
                         ))
                         .toList()
         );
@@ -168,10 +206,10 @@ public class PollService {
 
     @Transactional
     public AddPollOptionResponse addPollOption(String pollId, AddPollOptionRequest request) {
-        var poll = pollRepository.findById(pollId)
+        var poll = pollRepository.findById(parseId(pollId, "Poll"))
                 .orElseThrow(() -> new ResourceNotFoundException("Poll with id " + pollId + " does not exist."));
 
-        if (poll.getStatus() != PollStatus.NOT_STARTED) {
+        if (poll.getStatus(clock.instant()) != PollStatus.NOT_STARTED) {
             throw new PollAlreadyStartedException("Options cannot be added after the poll has started.");
         }
 
@@ -182,67 +220,228 @@ public class PollService {
 
         optionRepository.save(option);
 
+        evictTalliesAfterCommit(poll.getId());
+        invalidateResponseAfterCommit(poll.getId());
+
         return new AddPollOptionResponse(
-                option.getId(),
+                option.getId().toString(),
                 option.getText(),
-                option.getVotes()
+                option.getTotalVotes()
         );
     }
 
     @Transactional
     public void deletePoll(String pollId) {
-        var pollToDelete = pollRepository.existsById(pollId);
+        var pollUuid = parseId(pollId, "Poll");
+        var pollToDelete = pollRepository.existsById(pollUuid);
 
         if (!pollToDelete) {
             throw new ResourceNotFoundException("Poll with id " + pollId + " does not exist.");
         }
 
-        pollRepository.deleteById(pollId);
+        pollRepository.deleteById(pollUuid);
+
+        voterIndex.evict(pollUuid.toString());
+        evictTalliesAfterCommit(pollUuid);
+        invalidateResponseAfterCommit(pollUuid);
     }
 
     @Transactional
     public void deletePollOption(String pollId, String optionId) {
-        var poll = pollRepository.findByIdWithLock(pollId)
+        var pollUuid = parseId(pollId, "Poll");
+        var optionUuid = parseId(optionId, "Option");
+
+        var poll = pollRepository.findByIdWithLock(pollUuid)
                 .orElseThrow(() -> new ResourceNotFoundException("Poll with id " + pollId + " does not exist."));
 
-        if (poll.getStatus() != PollStatus.NOT_STARTED) {
+        if (poll.getStatus(clock.instant()) != PollStatus.NOT_STARTED) {
             throw new PollAlreadyStartedException("Options cannot be deleted after the poll has started.");
         }
 
-        int pollOptionsCount = optionRepository.countByPollId(pollId);
+        int pollOptionsCount = optionRepository.countByPollId(pollUuid);
 
         if (pollOptionsCount <= 3) {
             throw new MinimumPollOptionsException("A poll must have at least three options.");
         }
 
-        var option = optionRepository.findById(optionId)
+        var option = optionRepository.findById(optionUuid)
                 .orElseThrow(() -> new ResourceNotFoundException("Option with id " + optionId + " does not exist."));
 
-        if (!option.getPoll().getId().equals(pollId)) {
+        if (!option.getPoll().getId().equals(pollUuid)) {
             throw new ResourceNotFoundException("Option with id " + optionId + " does not belong to poll with id " + pollId + ".");
         }
 
-        optionRepository.deleteById(optionId);
+        optionRepository.deleteById(optionUuid);
+
+        evictTalliesAfterCommit(pollUuid);
+        invalidateResponseAfterCommit(pollUuid);
     }
 
     @Transactional
-    public void votePollOption(String pollId, String optionId) {
-        var poll = pollRepository.findById(pollId)
+    public int votePollOption(String pollId, String optionId, String voterToken) {
+        var pollUuid = parseId(pollId, "Poll");
+        var optionUuid = parseId(optionId, "Option");
+
+        var lookup = VotePhaseEvent.begin(pollId, "lookup");
+
+        if (onePerVoter) {
+            checkVoterNotIndexed(pollUuid, voterToken);
+        }
+
+        var poll = pollRepository.findById(pollUuid)
                 .orElseThrow(() -> new ResourceNotFoundException("Poll with id " + pollId + " does not exist."));
 
-        if (poll.getStatus() != PollStatus.IN_PROGRESS) {
+        if (poll.getStatus(clock.instant()) != PollStatus.IN_PROGRESS) {
             throw new PollNotInProgressException("Votes can only be cast on polls that are in progress.");
         }
 
-        var option = optionRepository.findById(optionId)
+        var option = optionRepository.findById(optionUuid)
                 .orElseThrow(() -> new ResourceNotFoundException("Option with id " + optionId + " does not exist."));
 
-        if (!option.getPoll().getId().equals(pollId)) {
+        if (!option.getPoll().getId().equals(pollUuid)) {
             throw new ResourceNotFoundException("Option with id " + optionId + " does not belong to poll with id " + pollId + ".");
         }
 
-        optionRepository.incrementVotes(optionId);
+        lookup.commit();
+
+        if (onePerVoter) {
+            var register = VotePhaseEvent.begin(pollId, "register-voter");
+            registerVoter(pollUuid, poll.getEndsAt(), voterToken);
+            register.commit();
+        }
+
+        recordHistoryAfterCommit(pollUuid, optionUuid);
+        recordCommitPhase(pollId);
+
+        var increment = VotePhaseEvent.begin(pollId, "increment");
+
+        try {
+            if (hotPollDetector.record(pollUuid.toString()) == WriteMode.BUFFERED) {
+                // Persisted and broadcast by the next VoteBuffer flush, once this transaction has committed
+                bufferVoteAfterCommit(pollUuid, optionUuid);
+                voteCounter.loadShardVotes(List.of(option));
+                return option.getTotalVotes() + (int) voteBuffer.pending(optionUuid) + 1;
+            }
+
+            int votes = voteCounter.increment(optionUuid);
+
+            patchResponseAfterCommit(pollUuid, optionUuid, votes);
+
+            eventPublisher.publishEvent(new PollOptionVotedEvent(this, pollUuid.toString(), optionUuid.toString(), clock.instant()));
+
+            return votes;
+        } finally {
+            increment.commit();
+        }
+    }
+
+    // Flushing the vote and committing happen after this method returns, so they are timed from the transaction
+    private void recordCommitPhase(String pollId) {
+        var commit = new VotePhaseEvent(pollId, "commit");
+
+        if (!commit.isEnabled()) return;
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                commit.begin();
+            }
+
+            @Override
+            public void afterCommit() {
+                commit.commit();
+            }
+        });
+    }
+
+    private void checkVoterNotIndexed(UUID pollId, String voterToken) {
+        if (voterToken == null || voterToken.isBlank() || voterToken.length() > 255) {
+            throw new VoterTokenRequiredException("A voter token of up to 255 characters is required to vote.");
+        }
+
+        if (voterIndex.contains(pollId.toString(), voterToken)) {
+            throw new DuplicateVoteException("This voter has already voted on poll with id " + pollId + ".");
+        }
+    }
+
+    private void registerVoter(UUID pollId, Instant endsAt, String voterToken) {
+        if (pollRepository.registerVoter(pollId, voterToken) == 0) {
+            voterIndex.add(pollId.toString(), endsAt, voterToken);
+            throw new DuplicateVoteException("This voter has already voted on poll with id " + pollId + ".");
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                voterIndex.add(pollId.toString(), endsAt, voterToken);
+            }
+        });
+    }
+
+    private void recordHistoryAfterCommit(UUID pollId, UUID optionId) {
+        // Only an in-memory increment; the buckets are written in batches by the recorder's own flush
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                voteHistoryRecorder.record(pollId, optionId, 1);
+            }
+        });
+    }
 
-        eventPublisher.publishEvent(new PollOptionVotedEvent(this, pollId, optionId, Instant.now()));
+    // A rolled back vote, e.g. a duplicate voter, must never reach the buffer and its flush
+    private void bufferVoteAfterCommit(UUID pollId, UUID optionId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                voteBuffer.add(pollId, optionId);
+            }
+        });
+    }
+
+    // Evicted before commit, a concurrent vote could seed the tallies again from the old options
+    private void evictTalliesAfterCommit(UUID pollId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pollTallies.evict(pollId.toString());
+            }
+        });
+    }
+
+    // Before commit, a concurrent read could cache the response again from the old rows
+    private void invalidateResponseAfterCommit(UUID pollId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pollResponseCache.invalidate(pollId.toString());
+            }
+        });
+    }
+
+    private void patchResponseAfterCommit(UUID pollId, UUID optionId, int votes) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pollResponseCache.patchVotes(pollId.toString(), optionId.toString(), votes);
+            }
+        });
+    }
+
+    private VoteSummaryResponse summarize(Poll poll, List<Option> options) {
+        Map<String, Integer> votesByOption = new LinkedHashMap<>();
+
+        for (var option : options) {
+            votesByOption.put(option.getId().toString(), option.getTotalVotes());
+        }
+
+        return pollTallies.summarize(poll.getId().toString(), votesByOption);
+    }
+
+    private static UUID parseId(String id, String resource) {
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            throw new ResourceNotFoundException(resource + " with id " + id + " does not exist.");
+        }
     }
 }
@@ -0,0 +1,142 @@
+package com.smlaurindo.realtime_polls.service;
+
+import com.smlaurindo.realtime_polls.dto.response.VoteSummaryResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@Component
+public class PollTallies {
+
+    private final Map<String, Tally> tallies = new ConcurrentHashMap<>();
+
+    @Value("${app.polls.tallies.idle-expiry-ms:600000}")
+    private long idleExpiryMs;
+
+    public PollTallies(MeterRegistry meterRegistry) {
+        Gauge.builder("polls.tallies.tracked", tallies, Map::size)
+                .description("Polls with an in-memory vote tally")
+                .register(meterRegistry);
+    }
+
+    // Merges counts already loaded by the caller, so a read never rescans the options to rank them
+    public VoteSummaryResponse summarize(String pollId, Map<String, Integer> votesByOption) {
+        var tally = tallies.computeIfAbsent(pollId, _ -> new Tally());
+        votesByOption.forEach(tally::set);
+        return tally.snapshot();
+    }
+
+    // Seeds from the database only the first time a poll is seen; later votes move a single entry
+    public VoteSummaryResponse record(String pollId, String optionId, int votes, Supplier<Map<String, Integer>> seed) {
+        var tally = tallies.computeIfAbsent(pollId, _ -> {
+            var seeded = new Tally();
+            seed.get().forEach(seeded::set);
+            return seeded;
+        });
+
+        tally.set(optionId, votes);
+        return tally.snapshot();
+    }
+
+    public void evict(String pollId) {
+        tallies.remove(pollId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.polls.tallies.sweep-interval-ms:60000}")
+    public void sweep() {
+        long idleBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleExpiryMs);
+        tallies.values().removeIf(tally -> tally.lastAccess - idleBefore < 0);
+    }
+
+    public static VoteSummaryResponse summaryOf(Map<String, Integer> votesByOption) {
+        var tally = new Tally();
+        votesByOption.forEach(tally::set);
+        return tally.snapshot();
+    }
+
+    private static final class Tally {
+
+        // Kept sorted by votes, highest first; ties keep the order in which options were first seen
+        private final List<Entry> ranking = new ArrayList<>();
+        private final Map<String, Integer> positions = new HashMap<>();
+        private long total;
+        private volatile long lastAccess = System.nanoTime();
+
+        private synchronized void set(String optionId, int votes) {
+            lastAccess = System.nanoTime();
+
+            Integer position = positions.get(optionId);
+
+            if (position == null) {
+                position = ranking.size();
+                ranking.add(new Entry(optionId));
+                positions.put(optionId, position);
+            }
+
+            var entry = ranking.get(position);
+
+            // Counts only grow while a poll is open, so a smaller value is a stale read that lost a race
+            if (votes <= entry.votes) return;
+
+            total += votes - entry.votes;
+            entry.votes = votes;
+
+            while (position > 0 && ranking.get(position - 1).votes < entry.votes) {
+                var above = ranking.get(position - 1);
+
+                ranking.set(position, above);
+                positions.put(above.optionId, position);
+
+                position--;
+
+                ranking.set(position, entry);
+                positions.put(entry.optionId, position);
+            }
+        }
+
+        private synchronized VoteSummaryResponse snapshot() {
+            lastAccess = System.nanoTime();
+
+            List<VoteSummaryResponse.RankingEntry> entries = new ArrayList<>(ranking.size());
+            int rank = 0;
+            int previousVotes = -1;
+
+            for (int i = 0; i < ranking.size(); i++) {
+                var entry = ranking.get(i);
+
+                // Options with the same count share a rank
+                if (entry.votes != previousVotes) {
+                    rank = i + 1;
+                    previousVotes = entry.votes;
+                }
+
+                double percentage = total == 0 ? 0 : Math.round(entry.votes * 10000.0 / total) / 100.0;
+                entries.add(new VoteSummaryResponse.RankingEntry(rank, entry.optionId, entry.votes, percentage));
+            }
+
+            String leadingOptionId = total > 0 ? ranking.getFirst().optionId : null;
+
+            return new VoteSummaryResponse(total, leadingOptionId, entries);
+        }
+
+        private static final class Entry {
+
+            private final String optionId;
+            private int votes;
+
+            private Entry(String optionId) {
+                this.optionId = optionId;
+            }
+        }
+    }
+}
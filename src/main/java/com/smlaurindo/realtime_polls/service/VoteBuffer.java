@@ -0,0 +1,117 @@
+package com.smlaurindo.realtime_polls.service;
+
+import com.smlaurindo.realtime_polls.observer.PollOptionVotedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Component
+public class VoteBuffer {
+
+    private final VoteCounter voteCounter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final PollResponseCache pollResponseCache;
+
+    private final Map<UUID, PendingVotes> pendingByOption = new ConcurrentHashMap<>();
+
+    public VoteBuffer(
+            VoteCounter voteCounter,
+            ApplicationEventPublisher eventPublisher,
+            TransactionTemplate transactionTemplate,
+            PollResponseCache pollResponseCache,
+            MeterRegistry meterRegistry
+    ) {
+        this.voteCounter = voteCounter;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.pollResponseCache = pollResponseCache;
+
+        Gauge.builder("polls.votes.buffered.pending", this, VoteBuffer::pendingVotes)
+                .description("Votes accepted in buffered write mode and not yet flushed")
+                .register(meterRegistry);
+    }
+
+    public long add(UUID pollId, UUID optionId) {
+        // compute() keeps the increment atomic with the removal of drained entries in flush()
+        return pendingByOption.compute(optionId, (_, current) -> {
+            var pending = current != null ? current : new PendingVotes(pollId);
+            pending.votes.incrementAndGet();
+            return pending;
+        }).votes.get();
+    }
+
+    public long pending(UUID optionId) {
+        var pending = pendingByOption.get(optionId);
+        return pending != null ? pending.votes.get() : 0;
+    }
+
+    public long pendingVotes() {
+        return pendingByOption.values().stream().mapToLong(pending -> pending.votes.get()).sum();
+    }
+
+    @Scheduled(fixedDelayString = "${app.votes.hot-poll.flush-interval-ms:200}")
+    public void flush() {
+        Map<UUID, Delta> deltas = new HashMap<>();
+
+        for (UUID optionId : pendingByOption.keySet()) {
+            pendingByOption.computeIfPresent(optionId, (_, pending) -> {
+                long delta = pending.votes.getAndSet(0);
+
+                if (delta == 0) return null;
+
+                deltas.put(optionId, new Delta(pending.pollId, delta));
+                return pending;
+            });
+        }
+
+        if (deltas.isEmpty()) return;
+
+        try {
+            transactionTemplate.executeWithoutResult(_ -> deltas.forEach((optionId, delta) -> {
+                voteCounter.add(optionId, (int) delta.votes());
+
+                // One broadcast per option and flush instead of one per vote
+                eventPublisher.publishEvent(new PollOptionVotedEvent(this, delta.pollId().toString(), optionId.toString(), Instant.now()));
+            }));
+
+            // Hot polls are read from the database again at most once per flush
+            deltas.values().stream()
+                    .map(Delta::pollId)
+                    .distinct()
+                    .forEach(pollId -> pollResponseCache.invalidate(pollId.toString()));
+        } catch (Exception e) {
+            log.error("Failed to flush buffered votes, retrying on next flush: {}", e.getMessage());
+
+            deltas.forEach((optionId, delta) -> pendingByOption.compute(optionId, (_, current) -> {
+                var pending = current != null ? current : new PendingVotes(delta.pollId());
+                pending.votes.addAndGet(delta.votes());
+                return pending;
+            }));
+        }
+    }
+
+    private record Delta(UUID pollId, long votes) {}
+
+    private static final class PendingVotes {
+
+        private final UUID pollId;
+        private final AtomicLong votes = new AtomicLong();
+
+        private PendingVotes(UUID pollId) {
+            this.pollId = pollId;
+        }
+    }
+}
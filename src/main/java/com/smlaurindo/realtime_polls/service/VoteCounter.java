@@ -0,0 +1,71 @@
+package com.smlaurindo.realtime_polls.service;
+
+import com.smlaurindo.realtime_polls.domain.Option;
+import com.smlaurindo.realtime_polls.repository.OptionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VoteCounter {
+
+    private final OptionRepository optionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.votes.counter-mode:SINGLE}")
+    private CounterMode counterMode;
+
+    @Value("${app.votes.sharded.shards:16}")
+    private int shards;
+
+    public int increment(UUID optionId) {
+        return switch (counterMode) {
+            case SINGLE -> optionRepository.incrementVotes(optionId);
+            case SHARDED -> optionRepository.incrementShardedVotes(optionId, randomShard());
+        };
+    }
+
+    public void add(UUID optionId, int delta) {
+        switch (counterMode) {
+            case SINGLE -> optionRepository.addVotes(optionId, delta);
+            case SHARDED -> optionRepository.addShardedVotes(optionId, randomShard(), delta);
+        }
+    }
+
+    // Shard rows left after switching back to SINGLE only go uncounted until the next roll-up
+    public void loadShardVotes(Collection<Option> options) {
+        if (counterMode != CounterMode.SHARDED || options.isEmpty()) return;
+
+        Map<UUID, Integer> totalsByOption = optionRepository.findTotalVotes(options.stream().map(Option::getId).toList()).stream()
+                .collect(Collectors.toMap(OptionRepository.TotalVotes::getOptionId, OptionRepository.TotalVotes::getVotes));
+
+        // Relative to the loaded votes, which a roll-up may have changed since the options were read
+        options.forEach(option -> option.setShardVotes(totalsByOption.getOrDefault(option.getId(), option.getVotes()) - option.getVotes()));
+    }
+
+    // Runs in both modes so shards left behind after switching back to SINGLE are still folded in
+    @Scheduled(fixedDelayString = "${app.votes.sharded.roll-up-interval-ms:5000}")
+    public void rollUp() {
+        Integer rolledUp = transactionTemplate.execute(_ -> optionRepository.rollUpShardedVotes());
+
+        if (rolledUp != null && rolledUp > 0) {
+            log.debug("Rolled up sharded votes into {} options", rolledUp);
+        }
+    }
+
+    private int randomShard() {
+        // Spreads concurrent voters on one option over distinct rows, so they stop queueing on one row lock
+        return ThreadLocalRandom.current().nextInt(shards);
+    }
+}
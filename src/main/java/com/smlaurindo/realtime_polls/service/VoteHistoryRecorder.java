@@ -0,0 +1,159 @@
+package com.smlaurindo.realtime_polls.service;
+
+import com.smlaurindo.realtime_polls.domain.HistoryResolution;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Component
+public class VoteHistoryRecorder {
+
+    // Skips options deleted since the vote, which would otherwise fail the whole batch on the foreign key
+    private static final String INSERT_BUCKET = """
+            INSERT INTO vote_buckets (option_id, poll_id, resolution, bucket_start, votes)
+            SELECT ?, ?, 'SECOND', ?, ?
+            WHERE EXISTS (SELECT 1 FROM options WHERE id = ?)
+            ON CONFLICT (option_id, resolution, bucket_start) DO UPDATE SET votes = vote_buckets.votes + EXCLUDED.votes
+            """;
+
+    private static final String ROLL_UP = """
+            WITH expired AS (
+                DELETE FROM vote_buckets
+                WHERE resolution = '%1$s' AND bucket_start < ?
+                RETURNING option_id, poll_id, bucket_start, votes
+            )
+            INSERT INTO vote_buckets (option_id, poll_id, resolution, bucket_start, votes)
+            SELECT option_id, poll_id, '%2$s', date_trunc('%3$s', bucket_start AT TIME ZONE 'UTC') AT TIME ZONE 'UTC', SUM(votes)
+            FROM expired
+            GROUP BY option_id, poll_id, date_trunc('%3$s', bucket_start AT TIME ZONE 'UTC')
+            ON CONFLICT (option_id, resolution, bucket_start) DO UPDATE SET votes = vote_buckets.votes + EXCLUDED.votes
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<BucketKey, AtomicInteger> openBuckets = new ConcurrentHashMap<>();
+
+    @Value("${app.votes.history.second-retention:1h}")
+    private Duration secondRetention;
+
+    @Value("${app.votes.history.minute-retention:7d}")
+    private Duration minuteRetention;
+
+    public VoteHistoryRecorder(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+
+        Gauge.builder("polls.history.buckets.pending", openBuckets, Map::size)
+                .description("Per-second vote buckets held in memory and not yet flushed")
+                .register(meterRegistry);
+    }
+
+    public void record(UUID pollId, UUID optionId, int votes) {
+        var key = new BucketKey(pollId, optionId, currentSecond());
+
+        // compute() keeps the increment atomic with the removal of drained buckets in flush()
+        openBuckets.compute(key, (_, current) -> {
+            var bucket = current != null ? current : new AtomicInteger();
+            bucket.addAndGet(votes);
+            return bucket;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.votes.history.flush-interval-ms:1000}")
+    public void flush() {
+        // The current second is still filling up; flushing it now would only split it over two upserts
+        flushBefore(currentSecond());
+    }
+
+    // On shutdown nothing fills the current second anymore, so it is flushed too
+    public void flushAll() {
+        flushBefore(Long.MAX_VALUE);
+    }
+
+    private void flushBefore(long beforeSecond) {
+        Map<BucketKey, Integer> closed = new HashMap<>();
+
+        for (BucketKey key : openBuckets.keySet()) {
+            if (key.second() >= beforeSecond) continue;
+
+            openBuckets.computeIfPresent(key, (_, bucket) -> {
+                closed.put(key, bucket.get());
+                return null;
+            });
+        }
+
+        if (closed.isEmpty()) return;
+
+        List<Object[]> rows = new ArrayList<>(closed.size());
+
+        closed.forEach((key, votes) -> rows.add(new Object[]{
+                key.optionId(),
+                key.pollId(),
+                OffsetDateTime.ofInstant(Instant.ofEpochSecond(key.second()), ZoneOffset.UTC),
+                votes,
+                key.optionId()
+        }));
+
+        try {
+            jdbcTemplate.batchUpdate(INSERT_BUCKET, rows);
+        } catch (Exception e) {
+            log.error("Failed to flush vote history, retrying on next flush: {}", e.getMessage());
+
+            closed.forEach((key, votes) -> openBuckets.compute(key, (_, current) -> {
+                var bucket = current != null ? current : new AtomicInteger();
+                bucket.addAndGet(votes);
+                return bucket;
+            }));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.votes.history.downsample-interval-ms:60000}")
+    public void downsample() {
+        var now = OffsetDateTime.now(ZoneOffset.UTC);
+
+        transactionTemplate.executeWithoutResult(_ -> {
+            int minutes = rollUp(HistoryResolution.SECOND, HistoryResolution.MINUTE, now.minus(secondRetention));
+            int hours = rollUp(HistoryResolution.MINUTE, HistoryResolution.HOUR, now.minus(minuteRetention));
+
+            if (minutes > 0 || hours > 0) {
+                log.debug("Downsampled vote history into {} minute and {} hour buckets", minutes, hours);
+            }
+        });
+    }
+
+    private int rollUp(HistoryResolution source, HistoryResolution target, OffsetDateTime before) {
+        // Cutoff on a whole target bucket, so a bucket is never split between two resolutions
+        var cutoff = before.truncatedTo(target.unit());
+
+        return jdbcTemplate.update(ROLL_UP.formatted(source.name(), target.name(), target.field()), cutoff);
+    }
+
+    private static long currentSecond() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private record BucketKey(UUID pollId, UUID optionId, long second) {}
+}
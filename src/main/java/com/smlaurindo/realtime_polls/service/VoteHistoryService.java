@@ -0,0 +1,91 @@
+package com.smlaurindo.realtime_polls.service;
+
+import com.smlaurindo.realtime_polls.domain.HistoryResolution;
+import com.smlaurindo.realtime_polls.domain.Poll;
+import com.smlaurindo.realtime_polls.dto.response.VoteHistoryResponse;
+import com.smlaurindo.realtime_polls.repository.PollRepository;
+import com.smlaurindo.realtime_polls.service.exception.ResourceNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class VoteHistoryService {
+
+    // Older data only exists downsampled, so finer resolutions are truncated up to the requested one
+    private static final String HISTORY_QUERY = """
+            SELECT option_id, date_trunc('%s', bucket_start AT TIME ZONE 'UTC') AS bucket, SUM(votes) AS votes
+            FROM %s
+            WHERE poll_id = ? AND bucket_start >= ? AND bucket_start < ? AND resolution IN (%s)
+            GROUP BY option_id, bucket
+            ORDER BY option_id, bucket
+            """;
+
+    private final PollRepository pollRepository;
+    private final PollArchive pollArchive;
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+
+    @Transactional(readOnly = true)
+    public VoteHistoryResponse getHistory(String pollId, HistoryResolution resolution, OffsetDateTime from, OffsetDateTime to) {
+        var pollUuid = parseId(pollId, "Poll");
+        var poll = pollRepository.findById(pollUuid);
+
+        // An archived poll's buckets were moved along with it
+        var startsAt = poll.map(Poll::getStartsAt)
+                .or(() -> pollArchive.findArchivedStartsAt(pollUuid))
+                .orElseThrow(() -> new ResourceNotFoundException("Poll with id " + pollId + " does not exist."));
+
+        var resolved = resolution != null ? resolution : HistoryResolution.MINUTE;
+        var start = (from != null ? from.toInstant() : startsAt).truncatedTo(resolved.unit());
+        var end = to != null ? to.toInstant() : clock.instant();
+
+        String includedResolutions = Arrays.stream(HistoryResolution.values())
+                .filter(candidate -> candidate.ordinal() <= resolved.ordinal())
+                .map(candidate -> "'" + candidate.name() + "'")
+                .collect(Collectors.joining(", "));
+
+        Map<String, List<VoteHistoryResponse.Bucket>> bucketsByOption = new LinkedHashMap<>();
+
+        jdbcTemplate.query(
+                HISTORY_QUERY.formatted(resolved.field(), poll.isPresent() ? "vote_buckets" : "vote_buckets_archive", includedResolutions),
+                rs -> {
+                    var bucketStart = rs.getObject("bucket", LocalDateTime.class).toInstant(ZoneOffset.UTC);
+
+                    bucketsByOption.computeIfAbsent(rs.getString("option_id"), _ -> new ArrayList<>())
+                            .add(new VoteHistoryResponse.Bucket(bucketStart.toString(), rs.getInt("votes")));
+                },
+                pollUuid,
+                OffsetDateTime.ofInstant(start, ZoneOffset.UTC),
+                OffsetDateTime.ofInstant(end, ZoneOffset.UTC)
+        );
+
+        var options = bucketsByOption.entrySet().stream()
+                .map(entry -> new VoteHistoryResponse.OptionSeries(entry.getKey(), entry.getValue()))
+                .toList();
+
+        return new VoteHistoryResponse(pollUuid.toString(), resolved, start.toString(), end.toString(), options);
+    }
+
+    private static UUID parseId(String id, String resource) {
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            throw new ResourceNotFoundException(resource + " with id " + id + " does not exist.");
+        }
+    }
+}
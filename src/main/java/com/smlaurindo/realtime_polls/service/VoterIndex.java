@@ -0,0 +1,157 @@
+package com.smlaurindo.realtime_polls.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of voters that already voted on a poll, kept in front of the
+ * {@code poll_voters} table so repeated votes are rejected without a database round trip.
+ * <p>
+ * Tokens are stored as 64-bit hashes in an open-addressing {@code long[]} table per poll
+ * (no boxing). The table doubles once it is three quarters full, so its load factor stays
+ * between 0.375 and 0.75, which is about 10.7 to 21 bytes per voter: a million voters fill a
+ * 2^21-slot table of 16 MiB, and up to 24 MiB while it is being resized.
+ * The table is only a cache: a miss always falls through to the unique index in the database,
+ * and a poll's table is dropped once the poll has finished.
+ */
+@Component
+public class VoterIndex {
+
+    private final Map<String, LongHashSet> votersByPoll = new ConcurrentHashMap<>();
+    private final Clock clock;
+
+    @Value("${app.votes.voter-index.max-entries-per-poll:2000000}")
+    private int maxEntriesPerPoll;
+
+    public VoterIndex(MeterRegistry meterRegistry, Clock clock) {
+        this.clock = clock;
+
+        Gauge.builder("polls.voter.index.entries", this, VoterIndex::entries)
+                .description("Voter tokens cached in the in-memory voter index")
+                .register(meterRegistry);
+
+        Gauge.builder("polls.voter.index.bytes", this, VoterIndex::memoryBytes)
+                .description("Approximate memory used by the in-memory voter index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public boolean contains(String pollId, String voterToken) {
+        var voters = votersByPoll.get(pollId);
+        return voters != null && voters.contains(hash(voterToken));
+    }
+
+    public void add(String pollId, Instant endsAt, String voterToken) {
+        var voters = votersByPoll.computeIfAbsent(pollId, _ -> new LongHashSet());
+        voters.endsAt = endsAt;
+
+        // Once a poll exceeds the cap the database alone enforces uniqueness for new voters
+        if (voters.size() < maxEntriesPerPoll) {
+            voters.add(hash(voterToken));
+        }
+    }
+
+    public void evict(String pollId) {
+        votersByPoll.remove(pollId);
+    }
+
+    // No votes are accepted once a poll has finished, so its voters no longer need to be looked up
+    @Scheduled(fixedDelayString = "${app.votes.voter-index.sweep-interval-ms:60000}")
+    public void sweep() {
+        var now = clock.instant();
+        votersByPoll.values().removeIf(voters -> !voters.endsAt.isAfter(now));
+    }
+
+    public long entries() {
+        return votersByPoll.values().stream().mapToLong(LongHashSet::size).sum();
+    }
+
+    public long memoryBytes() {
+        return votersByPoll.values().stream().mapToLong(LongHashSet::memoryBytes).sum();
+    }
+
+    private static long hash(String value) {
+        // FNV-1a followed by the MurmurHash3 finalizer; collisions are ~n^2/2^65
+        long hash = 0xcbf29ce484222325L;
+
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        // 0 marks an empty slot
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static final class LongHashSet {
+
+        private long[] slots = new long[1024];
+        private int size;
+        private volatile Instant endsAt = Instant.MAX;
+
+        synchronized boolean contains(long key) {
+            int mask = slots.length - 1;
+
+            for (int i = (int) key & mask; slots[i] != 0; i = (i + 1) & mask) {
+                if (slots[i] == key) return true;
+            }
+
+            return false;
+        }
+
+        synchronized void add(long key) {
+            if (insert(slots, key)) {
+                size++;
+
+                if (size * 4L > slots.length * 3L) {
+                    resize();
+                }
+            }
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized long memoryBytes() {
+            return (long) slots.length * Long.BYTES;
+        }
+
+        private void resize() {
+            long[] resized = new long[slots.length * 2];
+
+            for (long key : slots) {
+                if (key != 0) insert(resized, key);
+            }
+
+            slots = resized;
+        }
+
+        private static boolean insert(long[] table, long key) {
+            int mask = table.length - 1;
+            int i = (int) key & mask;
+
+            while (table[i] != 0) {
+                if (table[i] == key) return false;
+                i = (i + 1) & mask;
+            }
+
+            table[i] = key;
+            return true;
+        }
+    }
+}
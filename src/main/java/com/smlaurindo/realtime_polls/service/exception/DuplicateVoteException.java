@@ -0,0 +1,7 @@
+package com.smlaurindo.realtime_polls.service.exception;
+
+public class DuplicateVoteException extends RuntimeException {
+    public DuplicateVoteException(String message) {
+        super(message);
+    }
+}
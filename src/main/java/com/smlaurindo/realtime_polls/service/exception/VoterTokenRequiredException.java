@@ -0,0 +1,7 @@
+package com.smlaurindo.realtime_polls.service.exception;
+
+public class VoterTokenRequiredException extends RuntimeException {
+    public VoterTokenRequiredException(String message) {
+        super(message);
+    }
+}
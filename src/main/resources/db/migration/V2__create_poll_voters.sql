@@ -0,0 +1,6 @@
+CREATE TABLE poll_voters(
+   poll_id     VARCHAR(255) NOT NULL,
+   voter_token VARCHAR(255) NOT NULL,
+   CONSTRAINT poll_voters_pk PRIMARY KEY (poll_id, voter_token),
+   CONSTRAINT poll_voters_fk_poll FOREIGN KEY (poll_id) REFERENCES polls (id) ON DELETE CASCADE
+);
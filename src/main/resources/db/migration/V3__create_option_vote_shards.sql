@@ -0,0 +1,7 @@
+CREATE TABLE option_vote_shards(
+   option_id VARCHAR(255) NOT NULL,
+   shard     SMALLINT NOT NULL,
+   votes     INTEGER NOT NULL DEFAULT 0,
+   CONSTRAINT option_vote_shards_pk PRIMARY KEY (option_id, shard),
+   CONSTRAINT option_vote_shards_fk_option FOREIGN KEY (option_id) REFERENCES options (id) ON DELETE CASCADE
+);
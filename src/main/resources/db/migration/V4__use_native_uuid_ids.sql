@@ -0,0 +1,13 @@
+ALTER TABLE options DROP CONSTRAINT options_fk_poll;
+ALTER TABLE poll_voters DROP CONSTRAINT poll_voters_fk_poll;
+ALTER TABLE option_vote_shards DROP CONSTRAINT option_vote_shards_fk_option;
+
+ALTER TABLE polls ALTER COLUMN id TYPE UUID USING id::uuid;
+ALTER TABLE options ALTER COLUMN id TYPE UUID USING id::uuid;
+ALTER TABLE options ALTER COLUMN poll_id TYPE UUID USING poll_id::uuid;
+ALTER TABLE poll_voters ALTER COLUMN poll_id TYPE UUID USING poll_id::uuid;
+ALTER TABLE option_vote_shards ALTER COLUMN option_id TYPE UUID USING option_id::uuid;
+
+ALTER TABLE options ADD CONSTRAINT options_fk_poll FOREIGN KEY (poll_id) REFERENCES polls (id) ON DELETE CASCADE;
+ALTER TABLE poll_voters ADD CONSTRAINT poll_voters_fk_poll FOREIGN KEY (poll_id) REFERENCES polls (id) ON DELETE CASCADE;
+ALTER TABLE option_vote_shards ADD CONSTRAINT option_vote_shards_fk_option FOREIGN KEY (option_id) REFERENCES options (id) ON DELETE CASCADE;
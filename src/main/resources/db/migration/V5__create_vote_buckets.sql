@@ -0,0 +1,11 @@
+CREATE TABLE vote_buckets(
+   option_id    UUID NOT NULL,
+   poll_id      UUID NOT NULL,
+   resolution   VARCHAR(16) NOT NULL,
+   bucket_start TIMESTAMPTZ NOT NULL,
+   votes        INTEGER NOT NULL,
+   CONSTRAINT vote_buckets_pk PRIMARY KEY (option_id, resolution, bucket_start),
+   CONSTRAINT vote_buckets_fk_option FOREIGN KEY (option_id) REFERENCES options (id) ON DELETE CASCADE
+);
+
+CREATE INDEX vote_buckets_idx_poll_bucket_start ON vote_buckets(poll_id, bucket_start);
@@ -0,0 +1,23 @@
+CREATE TABLE polls_archive(
+   id          UUID NOT NULL,
+   question    TEXT NOT NULL,
+   starts_at   TIMESTAMPTZ NOT NULL,
+   ends_at     TIMESTAMPTZ NOT NULL,
+   archived_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+   CONSTRAINT polls_archive_pk PRIMARY KEY (id, ends_at)
+) PARTITION BY RANGE (ends_at);
+
+CREATE TABLE options_archive(
+   id           UUID NOT NULL,
+   poll_id      UUID NOT NULL,
+   poll_ends_at TIMESTAMPTZ NOT NULL,
+   text         TEXT NOT NULL,
+   votes        INTEGER NOT NULL,
+   CONSTRAINT options_archive_pk PRIMARY KEY (id, poll_ends_at),
+   CONSTRAINT options_archive_fk_poll FOREIGN KEY (poll_id, poll_ends_at) REFERENCES polls_archive (id, ends_at) ON DELETE CASCADE
+) PARTITION BY RANGE (poll_ends_at);
+
+CREATE INDEX options_archive_idx_fk_poll ON options_archive(poll_id, poll_ends_at);
+
+CREATE INDEX polls_idx_starts_at ON polls(starts_at);
+CREATE INDEX polls_idx_ends_at ON polls(ends_at);
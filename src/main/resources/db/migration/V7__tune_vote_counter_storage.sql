@@ -0,0 +1,16 @@
+-- Vote updates only touch votes, which no index covers, so they can stay heap-only (HOT) as long as
+-- the new row version fits on the same page. Half of every page is left free for those versions.
+-- Applies to pages written from now on; existing tables need VACUUM FULL or pg_repack to be rewritten.
+ALTER TABLE options SET (
+   fillfactor = 50,
+   autovacuum_vacuum_scale_factor = 0.01,
+   autovacuum_vacuum_threshold = 1000,
+   autovacuum_vacuum_cost_delay = 0
+);
+
+ALTER TABLE option_vote_shards SET (
+   fillfactor = 50,
+   autovacuum_vacuum_scale_factor = 0.01,
+   autovacuum_vacuum_threshold = 1000,
+   autovacuum_vacuum_cost_delay = 0
+);
@@ -0,0 +1,11 @@
+CREATE TABLE idempotency_keys(
+   key_hash     BYTEA NOT NULL,
+   fingerprint  BIGINT NOT NULL,
+   status       SMALLINT NOT NULL,
+   content_type VARCHAR(255),
+   body         BYTEA NOT NULL,
+   expires_at   TIMESTAMPTZ NOT NULL,
+   CONSTRAINT idempotency_keys_pk PRIMARY KEY (key_hash)
+);
+
+CREATE INDEX idempotency_keys_idx_expires_at ON idempotency_keys(expires_at);
@@ -0,0 +1,12 @@
+CREATE TABLE vote_buckets_archive(
+   option_id    UUID NOT NULL,
+   poll_id      UUID NOT NULL,
+   poll_ends_at TIMESTAMPTZ NOT NULL,
+   resolution   VARCHAR(16) NOT NULL,
+   bucket_start TIMESTAMPTZ NOT NULL,
+   votes        INTEGER NOT NULL,
+   CONSTRAINT vote_buckets_archive_pk PRIMARY KEY (option_id, resolution, bucket_start, poll_ends_at),
+   CONSTRAINT vote_buckets_archive_fk_poll FOREIGN KEY (poll_id, poll_ends_at) REFERENCES polls_archive (id, ends_at) ON DELETE CASCADE
+) PARTITION BY RANGE (poll_ends_at);
+
+CREATE INDEX vote_buckets_archive_idx_poll_bucket_start ON vote_buckets_archive(poll_id, bucket_start);
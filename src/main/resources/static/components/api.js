@@ -1,4 +1,19 @@
+const VOTER_TOKEN_KEY = "voterToken";
+const RECONNECT_BASE_DELAY_MS = 500;
+const RECONNECT_MAX_DELAY_MS = 30000;
+
 export class PollAPI {
+  static get voterToken() {
+    let token = localStorage.getItem(VOTER_TOKEN_KEY);
+
+    if (!token) {
+      token = crypto.randomUUID();
+      localStorage.setItem(VOTER_TOKEN_KEY, token);
+    }
+
+    return token;
+  }
+
   static async fetchPolls(page = 0, filters = {}) {
     const params = new URLSearchParams({
       page: page.toString(),
@@ -75,6 +90,7 @@ export class PollAPI {
       `/polls/${pollId}/options/${optionId}/vote`,
       {
         method: "PATCH",
+        headers: { "X-Voter-Token": PollAPI.voterToken },
       }
     );
 
@@ -82,10 +98,33 @@ export class PollAPI {
     return;
   }
 
-  static connectWebSocket(pollId, onMessage) {
+  /**
+   * @param {string} pollId
+   * @param {{ resume?: boolean }} options resume marks a client that lost its
+   * session, which the server admits ahead of new connections
+   */
+  static webSocketUrl(pollId, { resume = false } = {}) {
     const protocol = window.location.protocol === "https:" ? "wss:" : "ws:";
-    const wsUrl = `${protocol}//${window.location.host}/ws/polls/${pollId}`;
-    const websocket = new WebSocket(wsUrl);
+    const query = resume ? "?resume=1" : "";
+    return `${protocol}//${window.location.host}/ws/polls/${pollId}${query}`;
+  }
+
+  /**
+   * Exponential backoff with full jitter, so clients dropped together
+   * spread their reconnects instead of retrying in lockstep.
+   * @param {number} attempt
+   * @returns {number}
+   */
+  static reconnectDelay(attempt) {
+    const ceiling = Math.min(
+      RECONNECT_MAX_DELAY_MS,
+      RECONNECT_BASE_DELAY_MS * 2 ** attempt
+    );
+    return Math.random() * ceiling;
+  }
+
+  static connectWebSocket(pollId, onMessage) {
+    const websocket = new WebSocket(PollAPI.webSocketUrl(pollId));
 
     websocket.onmessage = (event) => {
       const data = JSON.parse(event.data);
@@ -185,7 +185,7 @@ class PollApp extends HTMLElement {
 
   async vote(pollId, optionId) {
     try {
-      await PollAPI.vote(pollId, optionId);
+      await this.shadowRoot.querySelector("poll-detail").vote(optionId);
       this.showToast(appState.t("voteSuccess"), "success");
     } catch (error) {
       console.error("Error voting:", error);
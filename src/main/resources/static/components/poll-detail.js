@@ -1,4 +1,7 @@
 import { appState, formatDate } from "./utils.js";
+import { PollAPI } from "./api.js";
+
+const VOTE_ACK_TIMEOUT_MS = 5000;
 
 /**
  * @typedef {Object} Poll
@@ -16,6 +19,10 @@ class PollDetail extends HTMLElement {
   #poll = null;
   #websocket = null;
   #boundHandlers = {};
+  #pendingVotes = new Map();
+  #voteSequence = 0;
+  #reconnectTimer = null;
+  #reconnectAttempts = 0;
 
   constructor() {
     super();
@@ -44,6 +51,8 @@ class PollDetail extends HTMLElement {
   }
 
   disconnectedCallback() {
+    clearTimeout(this.#reconnectTimer);
+
     if (this.#websocket) {
       this.#websocket.close();
       this.#websocket = null;
@@ -63,26 +72,59 @@ class PollDetail extends HTMLElement {
     return this.#poll;
   }
 
-  connectWebSocket() {
+  connectWebSocket({ resume = false } = {}) {
+    clearTimeout(this.#reconnectTimer);
+
     if (this.#websocket) {
       this.#websocket.close();
     }
 
-    const protocol = window.location.protocol === "https:" ? "wss:" : "ws:";
-    const wsUrl = `${protocol}//${window.location.host}/ws/polls/${
-      this.#poll.id
-    }`;
-    this.#websocket = new WebSocket(wsUrl);
+    if (!resume) {
+      this.#reconnectAttempts = 0;
+    }
+
+    const websocket = new WebSocket(
+      PollAPI.webSocketUrl(this.#poll.id, { resume })
+    );
+    this.#websocket = websocket;
+
+    this.#websocket.onopen = () => {
+      this.#reconnectAttempts = 0;
+    };
 
     this.#websocket.onmessage = (event) => {
-      const { payload: optionUpdated } = JSON.parse(event.data);
-      this.#poll = {
-        ...this.#poll,
-        options: this.#poll.options.map((option) =>
-          option.id === optionUpdated.id ? optionUpdated : option
-        ),
-      };
-      this.renderOptions();
+      const message = JSON.parse(event.data);
+
+      switch (message.type) {
+        case "VOTE_UPDATED":
+          this.applyOptionVotes(
+            message.payload.id,
+            message.payload.votes,
+            message.payload.summary
+          );
+          break;
+        case "VOTE_ACK":
+          this.applyOptionVotes(message.payload.optionId, message.payload.votes);
+          this.settleVote(message.payload.requestId);
+          break;
+        case "ERROR":
+          this.settleVote(
+            message.payload.requestId,
+            new Error(message.payload.details)
+          );
+          break;
+      }
+    };
+
+    this.#websocket.onclose = (event) => {
+      this.#pendingVotes.forEach((_, requestId) =>
+        this.settleVote(requestId, new Error("WebSocket closed"))
+      );
+
+      // Closed by this component, or rejected for a bad poll id: nothing to retry
+      if (this.#websocket !== websocket || event.code === 1003) return;
+
+      this.scheduleReconnect(event);
     };
 
     this.#websocket.onerror = (error) => {
@@ -90,7 +132,121 @@ class PollDetail extends HTMLElement {
     };
   }
 
+  /**
+   * Reconnects with exponential backoff; a restarting server (1012) names a
+   * jittered delay in the close reason, which is used for the first attempt.
+   * @param {CloseEvent} event
+   */
+  scheduleReconnect(event) {
+    const hint =
+      event.code === 1012 && this.#reconnectAttempts === 0
+        ? /reconnect-after-ms=(\d+)/.exec(event.reason)
+        : null;
+    const delay = hint
+      ? Number(hint[1])
+      : PollAPI.reconnectDelay(this.#reconnectAttempts);
+
+    this.#reconnectAttempts++;
+    this.#reconnectTimer = setTimeout(
+      () => this.connectWebSocket({ resume: true }),
+      delay
+    );
+  }
+
+  /**
+   * Casts a vote over the open WebSocket and resolves on its ACK frame,
+   * falling back to the REST endpoint while the socket is not open.
+   * @param {string} optionId
+   * @returns {Promise<void>}
+   */
+  vote(optionId) {
+    if (this.#websocket?.readyState !== WebSocket.OPEN) {
+      return PollAPI.vote(this.#poll.id, optionId);
+    }
+
+    const requestId = `${Date.now()}-${++this.#voteSequence}`;
+
+    return new Promise((resolve, reject) => {
+      const timeout = setTimeout(
+        () => this.settleVote(requestId, new Error("Vote timed out")),
+        VOTE_ACK_TIMEOUT_MS
+      );
+
+      this.#pendingVotes.set(requestId, { resolve, reject, timeout });
+      this.#websocket.send(
+        JSON.stringify({
+          type: "VOTE",
+          requestId,
+          optionId,
+          voterToken: PollAPI.voterToken,
+        })
+      );
+    });
+  }
+
+  settleVote(requestId, error) {
+    const pending = this.#pendingVotes.get(requestId);
+
+    if (!pending) return;
+
+    this.#pendingVotes.delete(requestId);
+    clearTimeout(pending.timeout);
+
+    if (error) {
+      pending.reject(error);
+    } else {
+      pending.resolve();
+    }
+  }
+
+  applyOptionVotes(optionId, votes, summary) {
+    const currentSummary = this.#poll.summary;
+
+    this.#poll = {
+      ...this.#poll,
+      options: this.#poll.options.map((option) =>
+        // ACKs and broadcasts may arrive out of order, counts only grow
+        option.id === optionId
+          ? { ...option, votes: Math.max(option.votes, votes) }
+          : option
+      ),
+      summary:
+        summary && (!currentSummary || summary.totalVotes >= currentSummary.totalVotes)
+          ? summary
+          : currentSummary,
+    };
+    this.renderOptions();
+  }
+
+  /**
+   * Percentages ranked by the server, unless a newer local ACK has moved
+   * the counts past the last summary received.
+   * @returns {Map<string, number>}
+   */
+  votePercentages() {
+    const totalVotes = this.#poll.options.reduce(
+      (sum, opt) => sum + opt.votes,
+      0
+    );
+    const summary = this.#poll.summary;
+
+    if (summary && summary.totalVotes === totalVotes) {
+      return new Map(
+        summary.ranking.map((entry) => [entry.optionId, entry.percentage])
+      );
+    }
+
+    return new Map(
+      this.#poll.options.map((option) => [
+        option.id,
+        totalVotes > 0 ? (option.votes / totalVotes) * 100 : 0,
+      ])
+    );
+  }
+
   disconnectWebSocket() {
+    clearTimeout(this.#reconnectTimer);
+
     if (this.#websocket) {
       this.#websocket.close();
       this.#websocket = null;
@@ -220,10 +376,7 @@ class PollDetail extends HTMLElement {
 
     if (!optionsListUl) return;
 
-    const totalVotes = this.#poll.options.reduce(
-      (sum, opt) => sum + opt.votes,
-      0
-    );
+    const percentages = this.votePercentages();
     const canEdit = this.#poll.status === "NOT_STARTED";
     const canVote = this.#poll.status === "IN_PROGRESS";
     const canDelete = this.#poll.options.length > 3;
@@ -231,7 +384,7 @@ class PollDetail extends HTMLElement {
     optionsListUl.innerHTML = "";
 
     this.#poll.options.forEach((option) => {
-      const percentage = totalVotes > 0 ? (option.votes / totalVotes) * 100 : 0;
+      const percentage = percentages.get(option.id) ?? 0;
 
       const optionsListTemplate = document
         .getElementById("poll-detail-options-template")
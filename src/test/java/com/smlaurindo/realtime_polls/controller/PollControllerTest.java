@@ -2,35 +2,72 @@ package com.smlaurindo.realtime_polls.controller;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smlaurindo.realtime_polls.datasource.PrimaryStickiness;
 import com.smlaurindo.realtime_polls.domain.Poll;
 import com.smlaurindo.realtime_polls.domain.Option;
+import com.smlaurindo.realtime_polls.lifecycle.FinalVoteFlush;
+import com.smlaurindo.realtime_polls.lifecycle.RealtimeDrain;
 import com.smlaurindo.realtime_polls.repository.OptionRepository;
 import com.smlaurindo.realtime_polls.repository.PollRepository;
+import com.smlaurindo.realtime_polls.service.PollArchive;
+import com.smlaurindo.realtime_polls.service.VoteBuffer;
+import com.smlaurindo.realtime_polls.service.VoteCounter;
+import com.smlaurindo.realtime_polls.service.VoterIndex;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.socket.*;
 import org.springframework.web.socket.client.WebSocketClient;
 import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
 import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.images.builder.Transferable;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.sql.Connection;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
 
 import static java.util.UUID.randomUUID;
 import static org.junit.jupiter.api.Assertions.*;
@@ -41,12 +78,20 @@ import static org.junit.jupiter.api.Assertions.*;
 @DisplayName("Poll Controller End to End Tests")
 class PollControllerTest {
 
+    static Network network = Network.newNetwork();
+
     @Container
     @ServiceConnection
     static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17")
             .withDatabaseName("testdb")
             .withUsername("test")
-            .withPassword("test");
+            .withPassword("test")
+            .withNetwork(network)
+            .withNetworkAliases("primary")
+            .withCopyToContainer(
+                    Transferable.of("echo 'host replication all all scram-sha-256' >> \"$PGDATA/pg_hba.conf\""),
+                    "/docker-entrypoint-initdb.d/replication.sh"
+            );
 
     @Autowired
     private WebTestClient webTestClient;
@@ -63,12 +108,50 @@ class PollControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RealtimeDrain realtimeDrain;
+
+    @Autowired
+    private FinalVoteFlush finalVoteFlush;
+
     @AfterEach
     void tearDown() {
         optionRepository.deleteAll();
         pollRepository.deleteAll();
     }
 
+    @Nested
+    @DisplayName("GET /assets/** - Static Asset Tests")
+    class StaticAssetTests {
+
+        @Test
+        @DisplayName("Should serve fingerprinted assets precompressed and immutable")
+        void shouldServeFingerprintedAssetsPrecompressedAndImmutable() {
+            var page = webTestClient.get()
+                    .uri("/index.html")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().cacheControl(CacheControl.noCache())
+                    .expectBody(String.class)
+                    .returnResult()
+                    .getResponseBody();
+
+            var script = Pattern.compile("/assets/app\\.[0-9a-f]{12}\\.js").matcher(page);
+            assertTrue(script.find(), "index.html should reference the fingerprinted app.js");
+
+            webTestClient.get()
+                    .uri(script.group())
+                    .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .expectHeader().valueMatches(HttpHeaders.CACHE_CONTROL, ".*immutable.*");
+        }
+    }
+
     @Nested
     @DisplayName("POST /polls - Create Poll Tests")
     class CreatePollTests {
@@ -216,6 +299,128 @@ class PollControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("POST /polls/import - Import Polls Tests")
+    class ImportPollsTests {
+
+        private final String apiPath = "/polls/import";
+        private OffsetDateTime futureStartsAt;
+        private OffsetDateTime futureEndsAt;
+
+        @BeforeEach
+        void setUpImportTests() {
+            futureStartsAt = OffsetDateTime.now(ZoneOffset.UTC).plusHours(1);
+            futureEndsAt = futureStartsAt.plusDays(1);
+        }
+
+        @Test
+        @DisplayName("Should import valid NDJSON rows and report invalid ones")
+        void shouldImportValidNdjsonRowsAndReportInvalidOnes() throws Exception {
+            String body = String.join("\n",
+                    row("First imported poll", List.of("A", "B", "C")),
+                    row("", List.of("A", "B", "C")),
+                    row("Second imported poll", List.of("A", "B", "C", "D"))
+            );
+
+            webTestClient.post().uri(apiPath)
+                    .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                    .bodyValue(body)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.imported").isEqualTo(2)
+                    .jsonPath("$.failed").isEqualTo(1)
+                    .jsonPath("$.errors[0].row").isEqualTo(2)
+                    .jsonPath("$.errors[0].errors.question").isEqualTo("The question cannot be blank");
+
+            assertEquals(2, pollRepository.count());
+            assertEquals(7, optionRepository.count());
+        }
+
+        @Test
+        @DisplayName("Should import a JSON array of polls")
+        void shouldImportJsonArrayOfPolls() throws Exception {
+            String body = "[" + row("Array poll", List.of("A", "B", "C")) + "]";
+
+            webTestClient.post().uri(apiPath)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(body)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.imported").isEqualTo(1)
+                    .jsonPath("$.failed").isEqualTo(0);
+
+            webTestClient.get().uri("/polls")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.content[0].question").isEqualTo("Array poll")
+                    .jsonPath("$.content[0].options.length()").isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Should keep importing after a row with an invalid value")
+        void shouldKeepImportingAfterRowWithInvalidValue() throws Exception {
+            String body = String.join("\n",
+                    "{\"question\": \"Bad date\", \"startsAt\": \"tomorrow\", \"endsAt\": \"%s\", \"options\": [\"A\", \"B\", \"C\"]}"
+                            .formatted(futureEndsAt),
+                    row("Good poll", List.of("A", "B", "C"))
+            );
+
+            webTestClient.post().uri(apiPath)
+                    .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                    .bodyValue(body)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.imported").isEqualTo(1)
+                    .jsonPath("$.failed").isEqualTo(1)
+                    .jsonPath("$.errors[0].row").isEqualTo(1);
+
+            assertEquals(1, pollRepository.count());
+        }
+
+        @Test
+        @DisplayName("Should reject rows with missing fields without failing the rest of their chunk")
+        void shouldRejectRowsWithMissingFieldsWithoutFailingTheirChunk() throws Exception {
+            String body = "[" + String.join(",",
+                    row("Good poll", List.of("A", "B", "C")),
+                    "null",
+                    "{\"question\": \"No start\", \"endsAt\": \"%s\", \"options\": [\"A\", \"B\", \"C\"]}".formatted(futureEndsAt),
+                    "{\"question\": \"No options\", \"startsAt\": \"%s\", \"endsAt\": \"%s\"}".formatted(futureStartsAt, futureEndsAt),
+                    row("Another good poll", List.of("A", "B", "C"))
+            ) + "]";
+
+            webTestClient.post().uri(apiPath)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(body)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.imported").isEqualTo(2)
+                    .jsonPath("$.failed").isEqualTo(3)
+                    .jsonPath("$.errors[0].row").isEqualTo(2)
+                    .jsonPath("$.errors[0].errors.row").isEqualTo("The row must be a poll object")
+                    .jsonPath("$.errors[1].row").isEqualTo(3)
+                    .jsonPath("$.errors[1].errors.startsAt").isEqualTo("The start date is required")
+                    .jsonPath("$.errors[2].row").isEqualTo(4)
+                    .jsonPath("$.errors[2].errors.options").isEqualTo("The options are required");
+
+            assertEquals(2, pollRepository.count());
+            assertEquals(6, optionRepository.count());
+        }
+
+        private String row(String question, List<String> options) throws Exception {
+            return objectMapper.writeValueAsString(Map.of(
+                    "question", question,
+                    "startsAt", futureStartsAt.toString(),
+                    "endsAt", futureEndsAt.toString(),
+                    "options", options
+            ));
+        }
+    }
+
     @Nested
     @DisplayName("GET /polls - List Polls Tests")
     class ListPollsTests {
@@ -257,13 +462,13 @@ class PollControllerTest {
                     .expectStatus().isOk()
                     .expectBody()
                     .jsonPath("$.content.length()").isEqualTo(expectedTotalElements)
-                    .jsonPath("$.content[0].id").isEqualTo(poll1.getId())
+                    .jsonPath("$.content[0].id").isEqualTo(poll1.getId().toString())
                     .jsonPath("$.content[0].question").isEqualTo(poll1.getQuestion())
-                    .jsonPath("$.content[0].status").isEqualTo(poll1.getStatus().toString())
+                    .jsonPath("$.content[0].status").isEqualTo(poll1.getStatus(Instant.now()).toString())
                     .jsonPath("$.content[0].startsAt").isEqualTo(poll1.getStartsAt())
                     .jsonPath("$.content[0].endsAt").isEqualTo(poll1.getEndsAt())
                     .jsonPath("$.content[0].options.length()").isEqualTo(poll1.getOptions().size())
-                    .jsonPath("$.content[1].id").isEqualTo(poll2.getId())
+                    .jsonPath("$.content[1].id").isEqualTo(poll2.getId().toString())
                     .jsonPath("$.page").isEqualTo(expectedPage)
                     .jsonPath("$.pageSize").isEqualTo(expectedPageSize)
                     .jsonPath("$.pageLength").isEqualTo(expectedPageLength)
@@ -340,6 +545,173 @@ class PollControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("GET /polls/export - Export Polls Tests")
+    class ExportPollsTests {
+
+        private final String apiPath = "/polls/export";
+
+        private Poll notStartedPoll;
+        private Poll inProgressPoll;
+
+        @BeforeEach
+        void setUpExportTests() {
+            Instant now = Instant.now();
+            notStartedPoll = createTestPoll("Not Started Poll", now.plusSeconds(3600), now.plusSeconds(7200));
+            inProgressPoll = createTestPoll("In Progress Poll", now.minusSeconds(3600), now.plusSeconds(3600));
+            createTestPoll("Finished Poll", now.minusSeconds(7200), now.minusSeconds(3600));
+        }
+
+        @Test
+        @DisplayName("Should stream every poll as one NDJSON line")
+        void shouldStreamEveryPollAsOneNdjsonLine() throws Exception {
+            String body = webTestClient.get().uri(apiPath)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().contentTypeCompatibleWith(MediaType.parseMediaType("application/x-ndjson"))
+                    .expectBody(String.class)
+                    .returnResult()
+                    .getResponseBody();
+
+            assertNotNull(body);
+
+            List<String> lines = body.lines().filter(line -> !line.isBlank()).toList();
+            assertEquals(3, lines.size());
+
+            for (String line : lines) {
+                JsonNode poll = objectMapper.readTree(line);
+                assertEquals(3, poll.get("options").size());
+            }
+        }
+
+        @Test
+        @DisplayName("Should filter exported polls by status")
+        void shouldFilterExportedPollsByStatus() throws Exception {
+            String body = webTestClient.get().uri(apiPath + "?status=IN_PROGRESS")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(String.class)
+                    .returnResult()
+                    .getResponseBody();
+
+            assertNotNull(body);
+
+            JsonNode poll = objectMapper.readTree(body.strip());
+            assertEquals(inProgressPoll.getId().toString(), poll.get("id").asText());
+            assertEquals("IN_PROGRESS", poll.get("status").asText());
+        }
+
+        @Test
+        @DisplayName("Should filter exported polls by start date range")
+        void shouldFilterExportedPollsByStartDateRange() throws Exception {
+            var from = notStartedPoll.getStartsAt().minusSeconds(60);
+
+            String body = webTestClient.get()
+                    .uri(uriBuilder -> uriBuilder.path(apiPath).queryParam("from", from.toString()).build())
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(String.class)
+                    .returnResult()
+                    .getResponseBody();
+
+            assertNotNull(body);
+
+            JsonNode poll = objectMapper.readTree(body.strip());
+            assertEquals(notStartedPoll.getId().toString(), poll.get("id").asText());
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /polls/{pollId}/history - Vote History Tests")
+    class VoteHistoryTests {
+
+        private final String apiPath = "/polls/%s/history";
+        private final String votePath = "/polls/%s/options/%s/vote";
+
+        @Test
+        @DisplayName("Should return vote history per option once the buckets are flushed")
+        void shouldReturnVoteHistoryPerOption() throws Exception {
+            Instant now = Instant.now();
+            Poll poll = createTestPoll("History Poll", now.minusSeconds(3600), now.plusSeconds(3600));
+
+            Option first = poll.getOptions().getFirst();
+            Option second = poll.getOptions().get(1);
+
+            for (Option option : List.of(first, first, first, second)) {
+                webTestClient.patch()
+                        .uri(votePath.formatted(poll.getId(), option.getId()))
+                        .exchange()
+                        .expectStatus().isOk();
+            }
+
+            Map<String, Integer> votesBySecond = Map.of();
+
+            // Buckets are written once their second has passed, by the next scheduled flush
+            for (int attempt = 0; attempt < 50 && votesBySecond.getOrDefault(second.getId().toString(), 0) < 1; attempt++) {
+                Thread.sleep(200);
+                votesBySecond = historyVotes(poll, "SECOND");
+            }
+
+            assertEquals(Map.of(first.getId().toString(), 3, second.getId().toString(), 1), votesBySecond);
+            assertEquals(votesBySecond, historyVotes(poll, "MINUTE"));
+            assertEquals(votesBySecond, historyVotes(poll, "HOUR"));
+        }
+
+        @Test
+        @DisplayName("Should return empty history for poll without votes")
+        void shouldReturnEmptyHistoryForPollWithoutVotes() {
+            Instant now = Instant.now();
+            Poll poll = createTestPoll("Quiet Poll", now.minusSeconds(3600), now.plusSeconds(3600));
+
+            webTestClient.get()
+                    .uri(apiPath.formatted(poll.getId()))
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.pollId").isEqualTo(poll.getId().toString())
+                    .jsonPath("$.resolution").isEqualTo("MINUTE")
+                    .jsonPath("$.options.length()").isEqualTo(0);
+        }
+
+        @Test
+        @DisplayName("Should fail to get history of non-existent poll")
+        void shouldFailToGetHistoryOfNonExistentPoll() {
+            var uri = apiPath.formatted(randomUUID());
+
+            webTestClient.get()
+                    .uri(uri)
+                    .exchange()
+                    .expectStatus().isNotFound()
+                    .expectBody()
+                    .jsonPath("$.apiPath").isEqualTo(uri)
+                    .jsonPath("$.title").isEqualTo("Resource Not Found");
+        }
+
+        private Map<String, Integer> historyVotes(Poll poll, String resolution) throws Exception {
+            var body = webTestClient.get()
+                    .uri(apiPath.formatted(poll.getId()) + "?resolution=" + resolution)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(String.class)
+                    .returnResult()
+                    .getResponseBody();
+
+            Map<String, Integer> votesByOption = new HashMap<>();
+
+            for (JsonNode series : objectMapper.readTree(body).path("options")) {
+                int votes = 0;
+
+                for (JsonNode bucket : series.path("buckets")) {
+                    votes += bucket.path("votes").asInt();
+                }
+
+                votesByOption.put(series.path("optionId").asText(), votes);
+            }
+
+            return votesByOption;
+        }
+    }
+
     @Nested
     @DisplayName("GET /polls/{pollId} - Get Poll By ID Tests")
     class GetPollTests {
@@ -359,7 +731,7 @@ class PollControllerTest {
                     .exchange()
                     .expectStatus().isOk()
                     .expectBody()
-                    .jsonPath("$.id").isEqualTo(poll.getId())
+                    .jsonPath("$.id").isEqualTo(poll.getId().toString())
                     .jsonPath("$.question").isEqualTo(poll.getQuestion())
                     .jsonPath("$.status").isEqualTo(expectedPollStatus)
                     .jsonPath("$.startsAt").isEqualTo(poll.getStartsAt())
@@ -367,6 +739,142 @@ class PollControllerTest {
                     .jsonPath("$.options.length()").isEqualTo(poll.getOptions().size());
         }
 
+        @Test
+        @DisplayName("Should get poll with vote summary ranked by votes")
+        void shouldGetPollWithVoteSummary() {
+            Instant now = Instant.now();
+            Poll poll = createTestPoll("Ranked Poll", now.minusSeconds(3600), now.plusSeconds(3600));
+
+            Option leading = poll.getOptions().get(1);
+            Option second = poll.getOptions().get(2);
+
+            var votePath = "/polls/%s/options/%s/vote";
+
+            for (Option option : List.of(leading, leading, second)) {
+                webTestClient.patch()
+                        .uri(votePath.formatted(poll.getId(), option.getId()))
+                        .exchange()
+                        .expectStatus().isOk();
+            }
+
+            webTestClient.get()
+                    .uri(apiPath.formatted(poll.getId()))
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.summary.totalVotes").isEqualTo(3)
+                    .jsonPath("$.summary.leadingOptionId").isEqualTo(leading.getId().toString())
+                    .jsonPath("$.summary.ranking.length()").isEqualTo(3)
+                    .jsonPath("$.summary.ranking[0].optionId").isEqualTo(leading.getId().toString())
+                    .jsonPath("$.summary.ranking[0].rank").isEqualTo(1)
+                    .jsonPath("$.summary.ranking[0].percentage").isEqualTo(66.67)
+                    .jsonPath("$.summary.ranking[1].optionId").isEqualTo(second.getId().toString())
+                    .jsonPath("$.summary.ranking[1].percentage").isEqualTo(33.33)
+                    .jsonPath("$.summary.ranking[2].votes").isEqualTo(0);
+        }
+
+        @Test
+        @DisplayName("Should serve new votes for a poll already read")
+        void shouldServeNewVotesForCachedPoll() {
+            Instant now = Instant.now();
+            Poll poll = createTestPoll("Cached Poll", now.minusSeconds(3600), now.plusSeconds(3600));
+            Option option = poll.getOptions().get(1);
+
+            webTestClient.get()
+                    .uri(apiPath.formatted(poll.getId()))
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.summary.totalVotes").isEqualTo(0);
+
+            webTestClient.patch()
+                    .uri("/polls/%s/options/%s/vote".formatted(poll.getId(), option.getId()))
+                    .exchange()
+                    .expectStatus().isOk();
+
+            webTestClient.get()
+                    .uri(apiPath.formatted(poll.getId()))
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.summary.totalVotes").isEqualTo(1)
+                    .jsonPath("$.summary.leadingOptionId").isEqualTo(option.getId().toString());
+        }
+
+        @Test
+        @DisplayName("Should serve edited poll after it was read")
+        void shouldServeEditedPollAfterRead() {
+            Instant now = Instant.now();
+            Poll poll = createTestPoll("Before Edit", now.plusSeconds(3600), now.plusSeconds(7200));
+
+            webTestClient.get()
+                    .uri(apiPath.formatted(poll.getId()))
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.question").isEqualTo("Before Edit");
+
+            webTestClient.put()
+                    .uri(apiPath.formatted(poll.getId()))
+                    .bodyValue(Map.of("question", "After Edit"))
+                    .exchange()
+                    .expectStatus().isOk();
+
+            webTestClient.get()
+                    .uri(apiPath.formatted(poll.getId()))
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.question").isEqualTo("After Edit");
+        }
+
+        @Test
+        @DisplayName("Should serve pre-compressed body when gzip is accepted")
+        void shouldServeGzipBodyWhenAccepted() throws IOException {
+            Instant now = Instant.now();
+            String question = "Which option? ".repeat(100);
+            Poll poll = createTestPoll(question, now.plusSeconds(3600), now.plusSeconds(7200));
+
+            byte[] compressed = webTestClient.get()
+                    .uri(apiPath.formatted(poll.getId()))
+                    .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .expectBody(byte[].class)
+                    .returnResult()
+                    .getResponseBody();
+
+            assertNotNull(compressed);
+
+            try (var json = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+                JsonNode body = objectMapper.readTree(json);
+
+                assertEquals(poll.getId().toString(), body.get("id").asText());
+                assertEquals(question, body.get("question").asText());
+            }
+        }
+
+        @Test
+        @DisplayName("Should serve plain JSON when gzip is refused or not named")
+        void shouldServePlainJsonWhenGzipIsRefused() {
+            Instant now = Instant.now();
+            String question = "Which option? ".repeat(100);
+            Poll poll = createTestPoll(question, now.plusSeconds(3600), now.plusSeconds(7200));
+
+            for (String acceptEncoding : List.of("gzip;q=0", "x-gzip-foo", "br, *;q=0", "*;q=1, gzip;q=0")) {
+                webTestClient.get()
+                        .uri(apiPath.formatted(poll.getId()))
+                        .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding)
+                        .exchange()
+                        .expectStatus().isOk()
+                        .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+                        .expectBody()
+                        .jsonPath("$.question").isEqualTo(question);
+            }
+        }
+
         @Test
         @DisplayName("Should fail to get non-existent poll")
         void shouldFailToGetNonExistentPoll() {
@@ -423,7 +931,7 @@ class PollControllerTest {
                     .exchange()
                     .expectStatus().isOk()
                     .expectBody()
-                    .jsonPath("$.id").isEqualTo(notStartedPoll.getId())
+                    .jsonPath("$.id").isEqualTo(notStartedPoll.getId().toString())
                     .jsonPath("$.question").isEqualTo(updatedQuestion)
                     .jsonPath("$.startsAt").isEqualTo(notStartedPoll.getStartsAt())
                     .jsonPath("$.endsAt").isEqualTo(notStartedPoll.getEndsAt())
@@ -500,7 +1008,7 @@ class PollControllerTest {
                     .exchange()
                     .expectStatus().isOk()
                     .expectBody()
-                    .jsonPath("$.id").isEqualTo(notStartedPoll.getId())
+                    .jsonPath("$.id").isEqualTo(notStartedPoll.getId().toString())
                     .jsonPath("$.startsAt").isEqualTo(newStartsAt.toString())
                     .jsonPath("$.endsAt").isEqualTo(newEndsAt.toString());
         }
@@ -675,7 +1183,7 @@ class PollControllerTest {
                     .isOk();
 
             var expectedType = "VOTE_UPDATED";
-            var expectedOptionId = option.getId();
+            var expectedOptionId = option.getId().toString();
             var expectedOptionText = option.getText();
             var expectedVoteCount = 1;
 
@@ -694,33 +1202,125 @@ class PollControllerTest {
         }
 
         @Test
-        @DisplayName("Should fail to vote on poll that has not started")
-        void shouldFailToVoteOnPollThatHasNotStarted() {
-            Option option = notStartedPoll.getOptions().getFirst();
+        @DisplayName("Should vote over WebSocket and receive ACK with resulting count")
+        void shouldVoteOverWebSocketAndReceiveAck() throws Exception {
+            Option option = activePoll.getOptions().getFirst();
 
-            var uri = apiPath.formatted(notStartedPoll.getId(), option.getId());
+            WebSocketClient client = new StandardWebSocketClient();
 
-            var expectedStatusCode = HttpStatus.BAD_REQUEST.value();
-            var expectedErrorTitle = "Poll Not In Progress";
-            var expectedErrorDetails = "Votes can only be cast on polls that are in progress.";
+            BlockingQueue<String> messages = new LinkedBlockingQueue<>();
 
-            webTestClient.patch().uri(uri)
-                    .exchange()
-                    .expectStatus().isEqualTo(expectedStatusCode)
-                    .expectBody()
-                    .jsonPath("$.apiPath").isEqualTo(uri)
-                    .jsonPath("$.statusCode").isEqualTo(expectedStatusCode)
-                    .jsonPath("$.title").isEqualTo(expectedErrorTitle)
-                    .jsonPath("$.details").isEqualTo(expectedErrorDetails)
-                    .jsonPath("$.timestamp").isNotEmpty();
-        }
+            var wsUri = wsPath.formatted(port, activePoll.getId());
 
-        @Test
-        @DisplayName("Should fail to vote on finished poll")
-        void shouldFailToVoteOnFinishedPoll() {
-            Option option = finishedPoll.getOptions().getFirst();
+            WebSocketSession session = client.execute(
+                    new TextWebSocketHandler() {
 
-            var uri = apiPath.formatted(finishedPoll.getId(), option.getId());
+                        @Override
+                        protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+                            messages.add(message.getPayload());
+                        }
+                    },
+                    wsUri
+            ).get();
+
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(Map.of(
+                    "type", "VOTE",
+                    "requestId", "vote-1",
+                    "optionId", option.getId().toString()
+            ))));
+
+            var expectedType = "VOTE_ACK";
+            var expectedRequestId = "vote-1";
+            var expectedVoteCount = 1;
+
+            JsonNode ack = null;
+
+            // The ACK and the VOTE_UPDATED broadcast may arrive in any order
+            while (ack == null) {
+                JsonNode jsonNode = objectMapper.readTree(messages.take());
+
+                if (expectedType.equals(jsonNode.get("type").asText())) {
+                    ack = jsonNode;
+                }
+            }
+
+            assertEquals(expectedRequestId, ack.path("payload").get("requestId").asText());
+            assertEquals(option.getId().toString(), ack.path("payload").get("optionId").asText());
+            assertEquals(expectedVoteCount, ack.path("payload").get("votes").asInt());
+
+            Option updatedOption = optionRepository.findById(option.getId()).orElseThrow();
+            assertEquals(expectedVoteCount, updatedOption.getVotes());
+
+            session.close();
+        }
+
+        @Test
+        @DisplayName("Should reject WebSocket vote naming another poll than the connection's")
+        void shouldRejectWebSocketVoteForAnotherPoll() throws Exception {
+            Instant now = Instant.now();
+            Poll otherPoll = createTestPoll("Other Poll", now.minusSeconds(3600), now.plusSeconds(3600));
+            Option otherOption = otherPoll.getOptions().getFirst();
+
+            BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+
+            WebSocketSession session = new StandardWebSocketClient().execute(
+                    new TextWebSocketHandler() {
+
+                        @Override
+                        protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+                            messages.add(message.getPayload());
+                        }
+                    },
+                    wsPath.formatted(port, activePoll.getId())
+            ).get();
+
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(Map.of(
+                    "type", "VOTE",
+                    "requestId", "vote-other",
+                    "pollId", otherPoll.getId().toString(),
+                    "optionId", otherOption.getId().toString()
+            ))));
+
+            JsonNode error = objectMapper.readTree(messages.poll(10, TimeUnit.SECONDS));
+
+            assertEquals("ERROR", error.get("type").asText());
+            assertEquals("vote-other", error.path("payload").get("requestId").asText());
+            assertEquals("Invalid Message", error.path("payload").get("title").asText());
+
+            Option unchanged = optionRepository.findById(otherOption.getId()).orElseThrow();
+            assertEquals(0, unchanged.getVotes());
+
+            session.close();
+        }
+
+        @Test
+        @DisplayName("Should fail to vote on poll that has not started")
+        void shouldFailToVoteOnPollThatHasNotStarted() {
+            Option option = notStartedPoll.getOptions().getFirst();
+
+            var uri = apiPath.formatted(notStartedPoll.getId(), option.getId());
+
+            var expectedStatusCode = HttpStatus.BAD_REQUEST.value();
+            var expectedErrorTitle = "Poll Not In Progress";
+            var expectedErrorDetails = "Votes can only be cast on polls that are in progress.";
+
+            webTestClient.patch().uri(uri)
+                    .exchange()
+                    .expectStatus().isEqualTo(expectedStatusCode)
+                    .expectBody()
+                    .jsonPath("$.apiPath").isEqualTo(uri)
+                    .jsonPath("$.statusCode").isEqualTo(expectedStatusCode)
+                    .jsonPath("$.title").isEqualTo(expectedErrorTitle)
+                    .jsonPath("$.details").isEqualTo(expectedErrorDetails)
+                    .jsonPath("$.timestamp").isNotEmpty();
+        }
+
+        @Test
+        @DisplayName("Should fail to vote on finished poll")
+        void shouldFailToVoteOnFinishedPoll() {
+            Option option = finishedPoll.getOptions().getFirst();
+
+            var uri = apiPath.formatted(finishedPoll.getId(), option.getId());
 
             var expectedStatusCode = HttpStatus.BAD_REQUEST.value();
             var expectedErrorTitle = "Poll Not In Progress";
@@ -786,6 +1386,1197 @@ class PollControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("GET /polls/{pollId}/events - Poll Event Stream Tests")
+    class PollEventStreamTests {
+
+        private final String apiPath = "/polls/%s/events";
+        private final String votePath = "/polls/%s/options/%s/vote";
+
+        private Poll activePoll;
+
+        @BeforeEach
+        void setUpEventStreamTests() {
+            Instant now = Instant.now();
+            activePoll = createTestPoll("Active Poll", now.minusSeconds(3600), now.plusSeconds(3600));
+        }
+
+        @Test
+        @DisplayName("Should stream vote updates as server-sent events")
+        void shouldStreamVoteUpdatesAsServerSentEvents() {
+            Option option = activePoll.getOptions().getFirst();
+
+            var events = webTestClient.get()
+                    .uri(apiPath.formatted(activePoll.getId()))
+                    .accept(MediaType.TEXT_EVENT_STREAM)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .returnResult(new ParameterizedTypeReference<ServerSentEvent<String>>() {})
+                    .getResponseBody();
+
+            webTestClient.patch()
+                    .uri(votePath.formatted(activePoll.getId(), option.getId()))
+                    .exchange()
+                    .expectStatus().isOk();
+
+            var event = events
+                    .filter(sse -> "VOTE_UPDATED".equals(sse.event()))
+                    .blockFirst(Duration.ofSeconds(10));
+
+            assertNotNull(event);
+            assertNotNull(event.id());
+            assertTrue(event.data().contains(option.getId().toString()));
+        }
+
+        @Test
+        @DisplayName("Should replay missed updates when resuming with Last-Event-ID")
+        void shouldReplayMissedUpdatesWhenResumingWithLastEventId() {
+            Option option = activePoll.getOptions().getFirst();
+            var uri = apiPath.formatted(activePoll.getId());
+
+            var firstEvents = webTestClient.get()
+                    .uri(uri)
+                    .accept(MediaType.TEXT_EVENT_STREAM)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .returnResult(new ParameterizedTypeReference<ServerSentEvent<String>>() {})
+                    .getResponseBody();
+
+            webTestClient.patch()
+                    .uri(votePath.formatted(activePoll.getId(), option.getId()))
+                    .exchange()
+                    .expectStatus().isOk();
+
+            var first = firstEvents
+                    .filter(sse -> "VOTE_UPDATED".equals(sse.event()))
+                    .blockFirst(Duration.ofSeconds(10));
+
+            assertNotNull(first);
+
+            webTestClient.patch()
+                    .uri(votePath.formatted(activePoll.getId(), option.getId()))
+                    .exchange()
+                    .expectStatus().isOk();
+
+            var resumed = webTestClient.get()
+                    .uri(uri)
+                    .accept(MediaType.TEXT_EVENT_STREAM)
+                    .header("Last-Event-ID", first.id())
+                    .exchange()
+                    .expectStatus().isOk()
+                    .returnResult(new ParameterizedTypeReference<ServerSentEvent<String>>() {})
+                    .getResponseBody()
+                    .filter(sse -> "VOTE_UPDATED".equals(sse.event()))
+                    .blockFirst(Duration.ofSeconds(10));
+
+            assertNotNull(resumed);
+            assertTrue(Long.parseLong(resumed.id()) > Long.parseLong(first.id()));
+            assertTrue(resumed.data().contains("\"votes\":2"));
+        }
+
+        @Test
+        @DisplayName("Should return 404 when streaming events of a non-existent poll")
+        void shouldReturn404WhenStreamingEventsOfNonExistentPoll() {
+            webTestClient.get()
+                    .uri(apiPath.formatted(randomUUID()))
+                    .exchange()
+                    .expectStatus().isNotFound();
+        }
+    }
+
+    @Nested
+    @DisplayName("WS /ws/polls - Multiplexed Subscription Tests")
+    class MultiplexedSubscriptionTests {
+
+        private final String wsPath = "ws://localhost:%d/ws/polls";
+        private final String votePath = "/polls/%s/options/%s/vote";
+
+        private Poll firstPoll;
+        private Poll secondPoll;
+
+        @BeforeEach
+        void setUpMultiplexedTests() {
+            Instant now = Instant.now();
+            firstPoll = createTestPoll("First Poll", now.minusSeconds(3600), now.plusSeconds(3600));
+            secondPoll = createTestPoll("Second Poll", now.minusSeconds(3600), now.plusSeconds(3600));
+        }
+
+        @Test
+        @DisplayName("Should receive updates of every subscribed poll tagged with the poll id")
+        void shouldReceiveUpdatesOfEverySubscribedPoll() throws Exception {
+            BlockingQueue<JsonNode> messages = new LinkedBlockingQueue<>();
+            WebSocketSession session = connect(messages);
+
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(Map.of(
+                    "type", "SUBSCRIBE",
+                    "requestId", "sub-1",
+                    "pollIds", List.of(firstPoll.getId().toString(), secondPoll.getId().toString())
+            ))));
+
+            JsonNode subscribed = nextOfType(messages, "SUBSCRIBED");
+            assertEquals("sub-1", subscribed.path("payload").get("requestId").asText());
+            assertEquals(2, subscribed.path("payload").get("pollIds").size());
+
+            vote(firstPoll);
+            vote(secondPoll);
+
+            JsonNode firstUpdate = nextOfType(messages, "VOTE_UPDATED");
+            JsonNode secondUpdate = nextOfType(messages, "VOTE_UPDATED");
+
+            var updatedPolls = List.of(firstUpdate.get("pollId").asText(), secondUpdate.get("pollId").asText());
+            assertTrue(updatedPolls.contains(firstPoll.getId().toString()));
+            assertTrue(updatedPolls.contains(secondPoll.getId().toString()));
+
+            session.close();
+        }
+
+        @Test
+        @DisplayName("Should stop receiving updates of an unsubscribed poll")
+        void shouldStopReceivingUpdatesOfUnsubscribedPoll() throws Exception {
+            BlockingQueue<JsonNode> messages = new LinkedBlockingQueue<>();
+            WebSocketSession session = connect(messages);
+
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(Map.of(
+                    "type", "SUBSCRIBE",
+                    "pollIds", List.of(firstPoll.getId().toString(), secondPoll.getId().toString())
+            ))));
+            nextOfType(messages, "SUBSCRIBED");
+
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(Map.of(
+                    "type", "UNSUBSCRIBE",
+                    "pollIds", List.of(firstPoll.getId().toString())
+            ))));
+
+            JsonNode unsubscribed = nextOfType(messages, "UNSUBSCRIBED");
+            assertEquals(1, unsubscribed.path("payload").get("pollIds").size());
+
+            vote(firstPoll);
+            vote(secondPoll);
+
+            JsonNode update = nextOfType(messages, "VOTE_UPDATED");
+            assertEquals(secondPoll.getId().toString(), update.get("pollId").asText());
+
+            session.close();
+        }
+
+        @Test
+        @DisplayName("Should reject subscriptions with invalid poll ids")
+        void shouldRejectSubscriptionsWithInvalidPollIds() throws Exception {
+            BlockingQueue<JsonNode> messages = new LinkedBlockingQueue<>();
+            WebSocketSession session = connect(messages);
+
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(Map.of(
+                    "type", "SUBSCRIBE",
+                    "requestId", "sub-2",
+                    "pollIds", List.of("not-a-uuid")
+            ))));
+
+            JsonNode error = nextOfType(messages, "ERROR");
+            assertEquals("sub-2", error.path("payload").get("requestId").asText());
+            assertEquals("Invalid Message", error.path("payload").get("title").asText());
+
+            session.close();
+        }
+
+        private WebSocketSession connect(BlockingQueue<JsonNode> messages) throws Exception {
+            return new StandardWebSocketClient().execute(
+                    new TextWebSocketHandler() {
+
+                        @Override
+                        protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+                            messages.add(objectMapper.readTree(message.getPayload()));
+                        }
+                    },
+                    wsPath.formatted(port)
+            ).get();
+        }
+
+        private void vote(Poll poll) {
+            webTestClient.patch()
+                    .uri(votePath.formatted(poll.getId(), poll.getOptions().getFirst().getId()))
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+
+        private JsonNode nextOfType(BlockingQueue<JsonNode> messages, String type) throws InterruptedException {
+            while (true) {
+                JsonNode message = messages.poll(10, TimeUnit.SECONDS);
+
+                assertNotNull(message, "Timed out waiting for a " + type + " message");
+
+                if (type.equals(message.get("type").asText())) {
+                    return message;
+                }
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Shutdown - Realtime Drain Tests")
+    class RealtimeDrainTests {
+
+        private final String wsPath = "ws://localhost:%d/ws/polls/%s";
+
+        private Poll poll;
+
+        @BeforeEach
+        void setUpDrainTests() {
+            Instant now = Instant.now();
+            poll = createTestPoll("Draining Poll", now.minusSeconds(3600), now.plusSeconds(3600));
+        }
+
+        @AfterEach
+        void restartDrain() {
+            realtimeDrain.start();
+        }
+
+        @Test
+        @DisplayName("Should close sessions with a reconnect hint and refuse new ones while draining")
+        void shouldCloseSessionsWithReconnectHintAndRefuseNewOnes() throws Exception {
+            CompletableFuture<CloseStatus> closeStatus = new CompletableFuture<>();
+
+            new StandardWebSocketClient().execute(
+                    new TextWebSocketHandler() {
+
+                        @Override
+                        public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+                            closeStatus.complete(status);
+                        }
+                    },
+                    wsPath.formatted(port, poll.getId())
+            ).get();
+
+            double closedBefore = meterRegistry.counter("polls.drain.closed", "transport", "websocket").count();
+
+            realtimeDrain.stop();
+
+            CloseStatus status = closeStatus.get(10, TimeUnit.SECONDS);
+            assertEquals(CloseStatus.SERVICE_RESTARTED.getCode(), status.getCode());
+            assertTrue(status.getReason().matches("reconnect-after-ms=\\d+"));
+
+            assertThrows(ExecutionException.class, () -> new StandardWebSocketClient().execute(
+                    new TextWebSocketHandler(),
+                    wsPath.formatted(port, poll.getId())
+            ).get(10, TimeUnit.SECONDS));
+
+            webTestClient.get()
+                    .uri("/polls/%s/events".formatted(poll.getId()))
+                    .exchange()
+                    .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+                    .expectHeader().exists("Retry-After");
+
+            assertEquals(4, meterRegistry.get("polls.drain.phase").gauge().value());
+            assertTrue(meterRegistry.counter("polls.drain.closed", "transport", "websocket").count() > closedBefore);
+        }
+
+        @Test
+        @DisplayName("Should write buffered votes and the current history second on the final flush")
+        void shouldWriteBufferedVotesAndCurrentHistorySecondOnFinalFlush() {
+            Option option = poll.getOptions().getFirst();
+
+            webTestClient.patch()
+                    .uri("/polls/%s/options/%s/vote".formatted(poll.getId(), option.getId()))
+                    .header("X-Voter-Token", randomUUID().toString())
+                    .exchange()
+                    .expectStatus().isOk();
+
+            try {
+                finalVoteFlush.stop();
+            } finally {
+                finalVoteFlush.start();
+            }
+
+            assertEquals(1, optionRepository.findById(option.getId()).orElseThrow().getVotes());
+
+            webTestClient.get()
+                    .uri("/polls/%s/history?resolution=SECOND".formatted(poll.getId()))
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.options[0].optionId").isEqualTo(option.getId().toString())
+                    .jsonPath("$.options[0].buckets[0].votes").isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = {
+            "app.websocket.admission.enabled=true",
+            "app.websocket.admission.rate=0.01",
+            "app.websocket.admission.burst=1",
+            "app.websocket.admission.resume-rate=0.01",
+            "app.websocket.admission.resume-burst=1"
+    })
+    @DisplayName("WS /ws/polls/{pollId} - Connection Admission Tests")
+    class ConnectionAdmissionTests {
+
+        private final String wsPath = "ws://localhost:%d/ws/polls/%s";
+
+        @Test
+        @DisplayName("Should refuse new connections over the admission rate and admit resuming ones")
+        void shouldRefuseNewConnectionsOverRateAndAdmitResumingOnes() throws Exception {
+            Instant now = Instant.now();
+            Poll poll = createTestPoll("Crowded Poll", now.minusSeconds(3600), now.plusSeconds(3600));
+
+            WebSocketSession first = new StandardWebSocketClient()
+                    .execute(new TextWebSocketHandler(), wsPath.formatted(port, poll.getId()))
+                    .get(10, TimeUnit.SECONDS);
+
+            webTestClient.get()
+                    .uri("/ws/polls/%s".formatted(poll.getId()))
+                    .header("Connection", "Upgrade")
+                    .header("Upgrade", "websocket")
+                    .exchange()
+                    .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+                    .expectHeader().exists("Retry-After");
+
+            WebSocketSession resumed = new StandardWebSocketClient()
+                    .execute(new TextWebSocketHandler(), wsPath.formatted(port, poll.getId()) + "?resume=1")
+                    .get(10, TimeUnit.SECONDS);
+
+            assertTrue(first.isOpen());
+            assertTrue(resumed.isOpen());
+            assertEquals(1, meterRegistry.counter("polls.websocket.admission", "result", "rejected", "client", "new").count());
+
+            first.close();
+            resumed.close();
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = {
+            "app.profiling.enabled=true",
+            "app.profiling.token=profiling-token",
+            "management.endpoints.web.exposure.include=health,profiling"
+    })
+    @DisplayName("GET /actuator/profiling - Profiling Endpoint Tests")
+    class ProfilingEndpointTests {
+
+        @Test
+        @DisplayName("Should refuse the profiling endpoint without the token")
+        void shouldRefuseProfilingEndpointWithoutToken() {
+            webTestClient.get()
+                    .uri("/actuator/profiling/flamegraph")
+                    .exchange()
+                    .expectStatus().isUnauthorized()
+                    .expectHeader().valueEquals(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+
+            webTestClient.get()
+                    .uri("/actuator/profiling/flamegraph")
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer wrong-token")
+                    .exchange()
+                    .expectStatus().isUnauthorized();
+        }
+
+        @Test
+        @DisplayName("Should refuse other spellings of the profiling path without the token")
+        void shouldRefuseOtherSpellingsOfProfilingPathWithoutToken() {
+            var base = "http://localhost:" + port;
+
+            for (var path : List.of("/actuator;x/profiling/recording", "/actuator/%70rofiling/recording", "/actuator/profiling;x/recording")) {
+                webTestClient.get()
+                        .uri(URI.create(base + path))
+                        .exchange()
+                        .expectStatus().isUnauthorized();
+            }
+        }
+
+        @Test
+        @DisplayName("Should dump the recent recording and its collapsed stacks")
+        void shouldDumpRecentRecordingAndCollapsedStacks() {
+            Instant now = Instant.now();
+            Poll poll = createTestPoll("Profiled Poll", now.minusSeconds(3600), now.plusSeconds(3600));
+            Option option = poll.getOptions().getFirst();
+
+            webTestClient.patch()
+                    .uri("/polls/%s/options/%s/vote".formatted(poll.getId(), option.getId()))
+                    .exchange()
+                    .expectStatus().isOk();
+
+            byte[] recording = webTestClient.get()
+                    .uri("/actuator/profiling/recording?minutes=1")
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer profiling-token")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(byte[].class)
+                    .returnResult()
+                    .getResponseBody();
+
+            assertNotNull(recording);
+            // Every JFR file starts with the "FLR" magic
+            assertEquals("FLR", new String(recording, 0, 3));
+
+            webTestClient.get()
+                    .uri("/actuator/profiling/flamegraph?minutes=1&type=cpu")
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer profiling-token")
+                    .exchange()
+                    .expectStatus().isOk();
+
+            webTestClient.get()
+                    .uri("/actuator/profiling/flamegraph?type=unknown")
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer profiling-token")
+                    .exchange()
+                    .expectStatus().isBadRequest();
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = {
+            "app.polls.archive.enabled=true",
+            "app.polls.archive.finished-for=1d"
+    })
+    @DisplayName("Poll Archive Tests")
+    class PollArchiveTests {
+
+        @Autowired
+        private PollArchive pollArchive;
+
+        @Autowired
+        private VoterIndex voterIndex;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @Test
+        @DisplayName("Should archive long-finished polls and still get them by ID")
+        void shouldArchiveLongFinishedPollsAndGetThemById() {
+            Instant now = Instant.now();
+            Poll archived = createTestPoll("Archived Poll", now.minus(10, ChronoUnit.DAYS), now.minus(3, ChronoUnit.DAYS));
+            Poll recent = createTestPoll("Recent Poll", now.minus(2, ChronoUnit.HOURS), now.minus(1, ChronoUnit.HOURS));
+
+            Option winner = archived.getOptions().getFirst();
+            winner.setVotes(7);
+            optionRepository.save(winner);
+
+            pollArchive.archive();
+
+            assertFalse(pollRepository.existsById(archived.getId()));
+            assertTrue(pollRepository.existsById(recent.getId()));
+
+            webTestClient.get()
+                    .uri("/polls/" + archived.getId())
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.id").isEqualTo(archived.getId().toString())
+                    .jsonPath("$.question").isEqualTo("Archived Poll")
+                    .jsonPath("$.status").isEqualTo("FINISHED")
+                    .jsonPath("$.options.length()").isEqualTo(3)
+                    .jsonPath("$.summary.totalVotes").isEqualTo(7)
+                    .jsonPath("$.summary.leadingOptionId").isEqualTo(winner.getId().toString());
+        }
+
+        @Test
+        @DisplayName("Should keep the vote history of archived polls")
+        void shouldKeepVoteHistoryOfArchivedPolls() {
+            Instant now = Instant.now();
+            Poll archived = createTestPoll("Archived Poll", now.minus(10, ChronoUnit.DAYS), now.minus(3, ChronoUnit.DAYS));
+            Option option = archived.getOptions().getFirst();
+            Instant bucketStart = archived.getStartsAt().truncatedTo(ChronoUnit.HOURS).plus(1, ChronoUnit.HOURS);
+
+            jdbcTemplate.update(
+                    "INSERT INTO vote_buckets (option_id, poll_id, resolution, bucket_start, votes) VALUES (?, ?, 'HOUR', ?, 5)",
+                    option.getId(), archived.getId(), OffsetDateTime.ofInstant(bucketStart, ZoneOffset.UTC)
+            );
+
+            // Indexed as if still in progress, so only the archive can have dropped it
+            voterIndex.add(archived.getId().toString(), now.plus(1, ChronoUnit.DAYS), "voter");
+
+            pollArchive.archive();
+
+            assertFalse(pollRepository.existsById(archived.getId()));
+            assertFalse(voterIndex.contains(archived.getId().toString(), "voter"));
+
+            webTestClient.get()
+                    .uri("/polls/%s/history?resolution=HOUR".formatted(archived.getId()))
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.pollId").isEqualTo(archived.getId().toString())
+                    .jsonPath("$.options.length()").isEqualTo(1)
+                    .jsonPath("$.options[0].optionId").isEqualTo(option.getId().toString())
+                    .jsonPath("$.options[0].buckets[0].startsAt").isEqualTo(bucketStart.toString())
+                    .jsonPath("$.options[0].buckets[0].votes").isEqualTo(5);
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = "app.votes.one-per-voter=true")
+    @DisplayName("PATCH /polls/{pollId}/options/{optionId}/vote - One Vote Per Voter Tests")
+    class OneVotePerVoterTests {
+
+        private final String apiPath = "/polls/%s/options/%s/vote";
+
+        @Autowired
+        private VoterIndex voterIndex;
+
+        private Poll activePoll;
+
+        @BeforeEach
+        void setUpOneVotePerVoterTests() {
+            Instant now = Instant.now();
+            activePoll = createTestPoll("Active Poll", now.minusSeconds(3600), now.plusSeconds(3600));
+        }
+
+        @Test
+        @DisplayName("Should reject second vote from the same voter")
+        void shouldRejectSecondVoteFromSameVoter() {
+            Option option = activePoll.getOptions().getFirst();
+
+            var uri = apiPath.formatted(activePoll.getId(), option.getId());
+            var voterToken = randomUUID().toString();
+
+            var expectedStatusCode = HttpStatus.CONFLICT.value();
+            var expectedErrorTitle = "Duplicate Vote";
+
+            webTestClient.patch().uri(uri)
+                    .header("X-Voter-Token", voterToken)
+                    .exchange()
+                    .expectStatus().isOk();
+
+            webTestClient.patch().uri(uri)
+                    .header("X-Voter-Token", voterToken)
+                    .exchange()
+                    .expectStatus().isEqualTo(expectedStatusCode)
+                    .expectBody()
+                    .jsonPath("$.apiPath").isEqualTo(uri)
+                    .jsonPath("$.statusCode").isEqualTo(expectedStatusCode)
+                    .jsonPath("$.title").isEqualTo(expectedErrorTitle)
+                    .jsonPath("$.timestamp").isNotEmpty();
+
+            Option updatedOption = optionRepository.findById(option.getId()).orElseThrow();
+            assertEquals(1, updatedOption.getVotes());
+        }
+
+        @Test
+        @DisplayName("Should drop indexed voters once the poll has finished")
+        void shouldDropIndexedVotersOncePollHasFinished() {
+            Option option = activePoll.getOptions().getFirst();
+            var voterToken = randomUUID().toString();
+
+            webTestClient.patch().uri(apiPath.formatted(activePoll.getId(), option.getId()))
+                    .header("X-Voter-Token", voterToken)
+                    .exchange()
+                    .expectStatus().isOk();
+
+            assertTrue(voterIndex.contains(activePoll.getId().toString(), voterToken));
+
+            voterIndex.sweep();
+
+            assertTrue(voterIndex.contains(activePoll.getId().toString(), voterToken));
+
+            Instant now = Instant.now();
+            Poll finished = createTestPoll("Finished Poll", now.minusSeconds(7200), now.minusSeconds(3600));
+            voterIndex.add(finished.getId().toString(), finished.getEndsAt(), voterToken);
+
+            voterIndex.sweep();
+
+            assertFalse(voterIndex.contains(finished.getId().toString(), voterToken));
+            assertTrue(voterIndex.contains(activePoll.getId().toString(), voterToken));
+        }
+
+        @Test
+        @DisplayName("Should fail to vote without voter token")
+        void shouldFailToVoteWithoutVoterToken() {
+            Option option = activePoll.getOptions().getFirst();
+
+            var uri = apiPath.formatted(activePoll.getId(), option.getId());
+
+            var expectedStatusCode = HttpStatus.BAD_REQUEST.value();
+            var expectedErrorTitle = "Voter Token Required";
+
+            webTestClient.patch().uri(uri)
+                    .exchange()
+                    .expectStatus().isEqualTo(expectedStatusCode)
+                    .expectBody()
+                    .jsonPath("$.title").isEqualTo(expectedErrorTitle);
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = {
+            "app.votes.one-per-voter=true",
+            "app.votes.hot-poll.enabled=true",
+            "app.votes.hot-poll.window-seconds=1",
+            "app.votes.hot-poll.hot-threshold=1",
+            "app.votes.hot-poll.cool-threshold=0",
+            "app.votes.hot-poll.flush-interval-ms=3600000"
+    })
+    @DisplayName("PATCH /polls/{pollId}/options/{optionId}/vote - Buffered Write Mode Tests")
+    class BufferedVoteTests {
+
+        private final String apiPath = "/polls/%s/options/%s/vote";
+
+        @Autowired
+        private VoteBuffer voteBuffer;
+
+        private Poll activePoll;
+
+        @BeforeEach
+        void setUpBufferedVoteTests() {
+            Instant now = Instant.now();
+            activePoll = createTestPoll("Hot Poll", now.minusSeconds(3600), now.plusSeconds(3600));
+        }
+
+        @Test
+        @DisplayName("Should persist and broadcast buffered votes on flush")
+        void shouldPersistAndBroadcastBufferedVotesOnFlush() {
+            Option option = activePoll.getOptions().getFirst();
+            var uri = apiPath.formatted(activePoll.getId(), option.getId());
+
+            var events = webTestClient.get()
+                    .uri("/polls/%s/events".formatted(activePoll.getId()))
+                    .accept(MediaType.TEXT_EVENT_STREAM)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .returnResult(new ParameterizedTypeReference<ServerSentEvent<String>>() {})
+                    .getResponseBody();
+
+            for (int i = 0; i < 3; i++) {
+                webTestClient.patch().uri(uri)
+                        .header("X-Voter-Token", randomUUID().toString())
+                        .exchange()
+                        .expectStatus().isOk();
+            }
+
+            assertEquals(3, voteBuffer.pending(option.getId()));
+            assertEquals(0, optionRepository.findById(option.getId()).orElseThrow().getVotes());
+
+            voteBuffer.flush();
+
+            assertEquals(0, voteBuffer.pending(option.getId()));
+            assertEquals(3, optionRepository.findById(option.getId()).orElseThrow().getVotes());
+
+            var event = events
+                    .filter(sse -> "VOTE_UPDATED".equals(sse.event()))
+                    .blockFirst(Duration.ofSeconds(10));
+
+            assertNotNull(event);
+            assertTrue(event.data().contains(option.getId().toString()));
+        }
+
+        @Test
+        @DisplayName("Should not buffer a rejected duplicate vote")
+        void shouldNotBufferRejectedDuplicateVote() {
+            Option option = activePoll.getOptions().getFirst();
+            var uri = apiPath.formatted(activePoll.getId(), option.getId());
+            var voterToken = randomUUID().toString();
+
+            webTestClient.patch().uri(uri)
+                    .header("X-Voter-Token", voterToken)
+                    .exchange()
+                    .expectStatus().isOk();
+
+            webTestClient.patch().uri(uri)
+                    .header("X-Voter-Token", voterToken)
+                    .exchange()
+                    .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+
+            voteBuffer.flush();
+
+            assertEquals(1, optionRepository.findById(option.getId()).orElseThrow().getVotes());
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = {
+            "app.rate-limit.enabled=true",
+            "app.rate-limit.endpoints.vote.per-client.rate=0.5",
+            "app.rate-limit.endpoints.vote.per-client.burst=2"
+    })
+    @DisplayName("PATCH /polls/{pollId}/options/{optionId}/vote - Rate Limit Tests")
+    class VoteRateLimitTests {
+
+        private final String apiPath = "/polls/%s/options/%s/vote";
+
+        private Poll activePoll;
+
+        @BeforeEach
+        void setUpRateLimitTests() {
+            Instant now = Instant.now();
+            activePoll = createTestPoll("Active Poll", now.minusSeconds(3600), now.plusSeconds(3600));
+        }
+
+        @Test
+        @DisplayName("Should reject votes over the client limit without touching the database")
+        void shouldRejectVotesOverClientLimit() {
+            Option option = activePoll.getOptions().getFirst();
+
+            var uri = apiPath.formatted(activePoll.getId(), option.getId());
+
+            var expectedStatusCode = HttpStatus.TOO_MANY_REQUESTS.value();
+            var expectedErrorTitle = "Too Many Requests";
+
+            for (int i = 0; i < 2; i++) {
+                webTestClient.patch().uri(uri)
+                        .exchange()
+                        .expectStatus().isOk();
+            }
+
+            webTestClient.patch().uri(uri)
+                    .exchange()
+                    .expectStatus().isEqualTo(expectedStatusCode)
+                    .expectHeader().exists("Retry-After")
+                    .expectBody()
+                    .jsonPath("$.apiPath").isEqualTo(uri)
+                    .jsonPath("$.statusCode").isEqualTo(expectedStatusCode)
+                    .jsonPath("$.title").isEqualTo(expectedErrorTitle);
+
+            Option updatedOption = optionRepository.findById(option.getId()).orElseThrow();
+            assertEquals(2, updatedOption.getVotes());
+        }
+
+        @Test
+        @DisplayName("Should limit each voter token on its own and tell when to retry")
+        void shouldLimitEachVoterTokenOnItsOwn() {
+            Option option = activePoll.getOptions().getFirst();
+
+            var uri = apiPath.formatted(activePoll.getId(), option.getId());
+
+            webTestClient.patch().uri(uri)
+                    .header("X-Voter-Token", "first")
+                    .exchange()
+                    .expectStatus().isOk();
+
+            webTestClient.patch().uri(uri)
+                    .header("X-Voter-Token", "first")
+                    .exchange()
+                    .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+
+            // Two tokens at 0.5 per second leave about two seconds until the next one
+            webTestClient.patch().uri(uri)
+                    .header("X-Voter-Token", "first")
+                    .exchange()
+                    .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+                    .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "2");
+
+            webTestClient.patch().uri(uri)
+                    .header("X-Voter-Token", "second")
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+
+        @Test
+        @DisplayName("Should limit votes sent with path parameters or another spelling of the poll id")
+        void shouldLimitVotesSentWithAnotherSpellingOfTheSamePath() {
+            Option option = activePoll.getOptions().getFirst();
+
+            var base = "http://localhost:" + port + "/polls/%s/options/%s/vote";
+            var uris = List.of(
+                    URI.create(base.formatted(activePoll.getId(), option.getId()) + ";x"),
+                    URI.create(base.formatted(activePoll.getId().toString().toUpperCase(), option.getId())),
+                    URI.create(base.formatted(activePoll.getId(), option.getId()) + ";y")
+            );
+
+            int accepted = 0;
+            HttpStatusCode last = null;
+
+            for (URI uri : uris) {
+                last = webTestClient.patch().uri(uri)
+                        .exchange()
+                        .returnResult(String.class)
+                        .getStatus();
+
+                if (last.is2xxSuccessful()) accepted++;
+            }
+
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, last);
+
+            Option updatedOption = optionRepository.findById(option.getId()).orElseThrow();
+            assertEquals(accepted, updatedOption.getVotes());
+        }
+    }
+
+    @Nested
+    @DisplayName("Idempotency-Key Tests")
+    class IdempotencyTests {
+
+        @Test
+        @DisplayName("Should count a retried vote once and replay the original response")
+        void shouldCountRetriedVoteOnce() {
+            Instant now = Instant.now();
+            Poll poll = createTestPoll("Retried Vote Poll", now.minusSeconds(3600), now.plusSeconds(3600));
+            Option option = poll.getOptions().getFirst();
+
+            var uri = "/polls/%s/options/%s/vote".formatted(poll.getId(), option.getId());
+            var idempotencyKey = randomUUID().toString();
+
+            webTestClient.patch().uri(uri)
+                    .header("Idempotency-Key", idempotencyKey)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().doesNotExist("Idempotent-Replayed");
+
+            webTestClient.patch().uri(uri)
+                    .header("Idempotency-Key", idempotencyKey)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().valueEquals("Idempotent-Replayed", "true");
+
+            Option updatedOption = optionRepository.findById(option.getId()).orElseThrow();
+            assertEquals(1, updatedOption.getVotes());
+        }
+
+        @Test
+        @DisplayName("Should replay a vote retried with path parameters")
+        void shouldReplayVoteRetriedWithPathParameters() {
+            Instant now = Instant.now();
+            Poll poll = createTestPoll("Path Parameter Poll", now.minusSeconds(3600), now.plusSeconds(3600));
+            Option option = poll.getOptions().getFirst();
+
+            var uri = "http://localhost:" + port + "/polls/%s/options/%s/vote".formatted(poll.getId(), option.getId());
+            var idempotencyKey = randomUUID().toString();
+
+            webTestClient.patch().uri(URI.create(uri))
+                    .header("Idempotency-Key", idempotencyKey)
+                    .exchange()
+                    .expectStatus().isOk();
+
+            webTestClient.patch().uri(URI.create(uri + ";retry"))
+                    .header("Idempotency-Key", idempotencyKey)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().valueEquals("Idempotent-Replayed", "true");
+
+            Option updatedOption = optionRepository.findById(option.getId()).orElseThrow();
+            assertEquals(1, updatedOption.getVotes());
+        }
+
+        @Test
+        @DisplayName("Should create a poll once when the create is retried")
+        void shouldCreatePollOnceWhenRetried() {
+            OffsetDateTime startsAt = OffsetDateTime.now(ZoneOffset.UTC).plusHours(1);
+
+            Map<String, Object> requestBody = Map.of(
+                    "question", "Created once?",
+                    "startsAt", startsAt.toString(),
+                    "endsAt", startsAt.plusDays(1).toString(),
+                    "options", List.of("Yes", "No", "Maybe")
+            );
+
+            var idempotencyKey = randomUUID().toString();
+
+            JsonNode created = webTestClient.post().uri("/polls")
+                    .header("Idempotency-Key", idempotencyKey)
+                    .bodyValue(requestBody)
+                    .exchange()
+                    .expectStatus().isCreated()
+                    .expectBody(JsonNode.class)
+                    .returnResult()
+                    .getResponseBody();
+
+            JsonNode replayed = webTestClient.post().uri("/polls")
+                    .header("Idempotency-Key", idempotencyKey)
+                    .bodyValue(requestBody)
+                    .exchange()
+                    .expectStatus().isCreated()
+                    .expectHeader().valueEquals("Idempotent-Replayed", "true")
+                    .expectBody(JsonNode.class)
+                    .returnResult()
+                    .getResponseBody();
+
+            assertNotNull(created);
+            assertEquals(created, replayed);
+            assertEquals(1, pollRepository.count());
+        }
+
+        @Test
+        @DisplayName("Should reject a key reused for a different request")
+        void shouldRejectKeyReusedForDifferentRequest() {
+            OffsetDateTime startsAt = OffsetDateTime.now(ZoneOffset.UTC).plusHours(1);
+            var idempotencyKey = randomUUID().toString();
+
+            webTestClient.post().uri("/polls")
+                    .header("Idempotency-Key", idempotencyKey)
+                    .bodyValue(Map.of(
+                            "question", "First question",
+                            "startsAt", startsAt.toString(),
+                            "endsAt", startsAt.plusDays(1).toString(),
+                            "options", List.of("A", "B", "C")
+                    ))
+                    .exchange()
+                    .expectStatus().isCreated();
+
+            webTestClient.post().uri("/polls")
+                    .header("Idempotency-Key", idempotencyKey)
+                    .bodyValue(Map.of(
+                            "question", "Another question",
+                            "startsAt", startsAt.toString(),
+                            "endsAt", startsAt.plusDays(1).toString(),
+                            "options", List.of("A", "B", "C")
+                    ))
+                    .exchange()
+                    .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .expectBody()
+                    .jsonPath("$.apiPath").isEqualTo("/polls")
+                    .jsonPath("$.statusCode").isEqualTo(422);
+
+            assertEquals(1, pollRepository.count());
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = "app.votes.counter-mode=SHARDED")
+    @DisplayName("PATCH /polls/{pollId}/options/{optionId}/vote - Sharded Counter Tests")
+    class ShardedCounterTests {
+
+        private final String apiPath = "/polls/%s/options/%s/vote";
+
+        @Autowired
+        private VoteCounter voteCounter;
+
+        private Poll activePoll;
+
+        @BeforeEach
+        void setUpShardedCounterTests() {
+            Instant now = Instant.now();
+            activePoll = createTestPoll("Active Poll", now.minusSeconds(3600), now.plusSeconds(3600));
+        }
+
+        @Test
+        @DisplayName("Should sum sharded votes when reading a poll")
+        void shouldSumShardedVotesWhenReadingPoll() {
+            Option option = activePoll.getOptions().getFirst();
+
+            var uri = apiPath.formatted(activePoll.getId(), option.getId());
+
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                var futures = IntStream.range(0, 50)
+                        .mapToObj(_ -> executor.submit(() -> {
+                            webTestClient.patch()
+                                    .uri(uri)
+                                    .exchange()
+                                    .expectStatus().isOk();
+                        }))
+                        .toList();
+
+                for (var future : futures) {
+                    future.get();
+                }
+            } catch (Exception e) {
+                fail("Exception during voting: " + e.getMessage());
+            }
+
+            webTestClient.get()
+                    .uri("/polls/" + activePoll.getId())
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.options[?(@.id == '%s')].votes".formatted(option.getId())).isEqualTo(50);
+
+            Option updatedOption = optionRepository.findById(option.getId()).orElseThrow();
+            voteCounter.loadShardVotes(List.of(updatedOption));
+            assertEquals(50, updatedOption.getTotalVotes());
+        }
+    }
+
+    @Nested
+    @DirtiesContext
+    @DisplayName("GET /polls/{pollId} - Read Replica Routing Tests")
+    class ReadReplicaRoutingTests {
+
+        static GenericContainer<?> replica = new GenericContainer<>("postgres:17")
+                .withNetwork(network)
+                .withEnv("PGPASSWORD", "test")
+                .withExposedPorts(5432)
+                .withCreateContainerCmdModifier(cmd -> cmd.withEntrypoint("bash", "-c", """
+                        until gosu postgres pg_basebackup -h primary -U test -D /var/lib/postgresql/data/replica -R -X stream; do sleep 1; done
+                        exec gosu postgres postgres -D /var/lib/postgresql/data/replica
+                        """))
+                .waitingFor(Wait.forLogMessage(".*ready to accept read-only connections.*\\n", 1));
+
+        @DynamicPropertySource
+        static void replicaProperties(DynamicPropertyRegistry registry) {
+            replica.start();
+
+            registry.add("app.datasource.replicas[0].url",
+                    () -> "jdbc:postgresql://%s:%d/testdb".formatted(replica.getHost(), replica.getMappedPort(5432)));
+            registry.add("app.datasource.replicas[0].username", () -> "test");
+            registry.add("app.datasource.replicas[0].password", () -> "test");
+            registry.add("app.datasource.primary-stickiness", () -> "2s");
+        }
+
+        @AfterAll
+        static void stopReplica() {
+            replica.stop();
+        }
+
+        @Test
+        @DisplayName("Should serve read-only requests from the replica")
+        void shouldServeReadOnlyRequestsFromReplica() throws InterruptedException {
+            Instant now = Instant.now();
+            Poll poll = createTestPoll("Replicated Poll", now.minusSeconds(3600), now.plusSeconds(3600));
+
+            double replicaReadsBefore = readRoutes("replica", "read-only");
+            HttpStatusCode status = HttpStatus.NOT_FOUND;
+
+            // Waits for the poll to be replayed on the replica and for any earlier write stickiness to expire
+            for (int attempt = 0; attempt < 50 && (!status.is2xxSuccessful() || readRoutes("replica", "read-only") == replicaReadsBefore); attempt++) {
+                Thread.sleep(200);
+
+                status = webTestClient.get()
+                        .uri("/polls/" + poll.getId())
+                        .exchange()
+                        .returnResult(String.class)
+                        .getStatus();
+            }
+
+            assertEquals(HttpStatus.OK, status);
+            assertTrue(readRoutes("replica", "read-only") > replicaReadsBefore);
+        }
+
+        @Test
+        @DisplayName("Should read own writes from the primary right after creating a poll")
+        void shouldReadOwnWritesFromPrimaryAfterCreatingPoll() {
+            OffsetDateTime startsAt = OffsetDateTime.now(ZoneOffset.UTC).plusHours(1);
+
+            Map<String, Object> requestBody = Map.of(
+                    "question", "Read your writes?",
+                    "startsAt", startsAt.toString(),
+                    "endsAt", startsAt.plusDays(1).toString(),
+                    "options", List.of("Yes", "No", "Maybe")
+            );
+
+            var result = webTestClient.post().uri("/polls")
+                    .bodyValue(requestBody)
+                    .exchange()
+                    .expectStatus().isCreated()
+                    .expectBody(JsonNode.class)
+                    .returnResult();
+
+            JsonNode created = result.getResponseBody();
+            var clientCookie = result.getResponseCookies().getFirst(PrimaryStickiness.CLIENT_COOKIE);
+
+            assertNotNull(created);
+            assertNotNull(clientCookie);
+
+            double stickyReadsBefore = readRoutes("primary", "sticky");
+
+            webTestClient.get()
+                    .uri("/polls/" + created.get("id").asText())
+                    .cookie(PrimaryStickiness.CLIENT_COOKIE, clientCookie.getValue())
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.question").isEqualTo("Read your writes?");
+
+            assertTrue(readRoutes("primary", "sticky") > stickyReadsBefore);
+        }
+
+        @Test
+        @DisplayName("Should not pin other clients from the same address to the primary")
+        void shouldNotPinOtherClientsFromSameAddress() {
+            Instant now = Instant.now();
+            Poll poll = createTestPoll("Shared Address Poll", now.minusSeconds(3600), now.plusSeconds(3600));
+
+            webTestClient.patch()
+                    .uri("/polls/%s/options/%s/vote".formatted(poll.getId(), poll.getOptions().getFirst().getId()))
+                    .header("X-Voter-Token", "writer")
+                    .exchange()
+                    .expectStatus().isOk();
+
+            double stickyReadsBefore = readRoutes("primary", "sticky");
+
+            webTestClient.get()
+                    .uri("/polls")
+                    .header("X-Voter-Token", "reader")
+                    .exchange()
+                    .expectStatus().isOk();
+
+            assertEquals(stickyReadsBefore, readRoutes("primary", "sticky"));
+
+            webTestClient.get()
+                    .uri("/polls")
+                    .header("X-Voter-Token", "writer")
+                    .exchange()
+                    .expectStatus().isOk();
+
+            assertTrue(readRoutes("primary", "sticky") > stickyReadsBefore);
+        }
+
+        private double readRoutes(String target, String reason) {
+            var counter = meterRegistry.find("polls.datasource.read.routes")
+                    .tags("target", target, "reason", reason)
+                    .counter();
+
+            return counter != null ? counter.count() : 0;
+        }
+    }
+
+    @Nested
+    @DisplayName("Connection Pool Metrics Tests")
+    class ConnectionPoolMetricsTests {
+
+        @Test
+        @DisplayName("Should record connection acquire time under the matched endpoint")
+        void shouldRecordConnectionAcquireTimePerEndpoint() {
+            Instant now = Instant.now();
+            Poll poll = createTestPoll("Metered Poll", now.minusSeconds(3600), now.plusSeconds(3600));
+
+            webTestClient.get()
+                    .uri("/polls/" + poll.getId())
+                    .exchange()
+                    .expectStatus().isOk();
+
+            var timer = meterRegistry.find("polls.datasource.connection.acquire")
+                    .tag("endpoint", "GET /polls/{pollId}")
+                    .timer();
+
+            assertNotNull(timer);
+            assertTrue(timer.count() > 0);
+        }
+    }
+
+    @Nested
+    @DirtiesContext
+    @TestPropertySource(properties = {
+            "spring.datasource.hikari.maximum-pool-size=1",
+            "app.datasource.fail-fast.enabled=true",
+            "app.datasource.fail-fast.acquire-timeout=250ms"
+    })
+    @DisplayName("POST /polls - Connection Pool Exhaustion Tests")
+    class ConnectionPoolExhaustionTests {
+
+        @Autowired
+        private HikariDataSource primaryDataSource;
+
+        // The primary doubles as the replica, so writes go through the lazy connection proxy
+        @DynamicPropertySource
+        static void replicaProperties(DynamicPropertyRegistry registry) {
+            registry.add("app.datasource.replicas[0].url", postgres::getJdbcUrl);
+            registry.add("app.datasource.replicas[0].username", postgres::getUsername);
+            registry.add("app.datasource.replicas[0].password", postgres::getPassword);
+        }
+
+        @Test
+        @DisplayName("Should fail fast with 503 when no primary connection is free")
+        void shouldFailFastWith503WhenNoPrimaryConnectionIsFree() throws Exception {
+            OffsetDateTime startsAt = OffsetDateTime.now(ZoneOffset.UTC).plusHours(1);
+
+            Map<String, Object> requestBody = Map.of(
+                    "question", "Is the pool exhausted?",
+                    "startsAt", startsAt.toString(),
+                    "endsAt", startsAt.plusDays(1).toString(),
+                    "options", List.of("Yes", "No", "Maybe")
+            );
+
+            try (Connection held = primaryDataSource.getConnection()) {
+                assertNotNull(held);
+
+                long startedAt = System.nanoTime();
+
+                webTestClient.post().uri("/polls")
+                        .bodyValue(requestBody)
+                        .exchange()
+                        .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+                        .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "1")
+                        .expectBody()
+                        .jsonPath("$.title").isEqualTo("Service Unavailable");
+
+                assertTrue(Duration.ofNanos(System.nanoTime() - startedAt).compareTo(Duration.ofSeconds(5)) < 0);
+            }
+        }
+    }
+
     @Nested
     @DisplayName("DELETE /polls/{pollId}/options/{optionId} - Delete Poll Option Tests")
     class DeletePollOptionTests {
@@ -928,7 +2719,7 @@ class PollControllerTest {
         void shouldDeletePollAndCascadeDeleteOptions() {
             Instant now = Instant.now();
             Poll poll = createTestPoll("Test Poll", now.plusSeconds(3600), now.plusSeconds(7200));
-            List<String> optionIds = poll.getOptions().stream().map(Option::getId).toList();
+            List<UUID> optionIds = poll.getOptions().stream().map(Option::getId).toList();
 
             var uri = apiPath.formatted(poll.getId());
 
@@ -939,7 +2730,7 @@ class PollControllerTest {
 
             assertFalse(pollRepository.existsById(poll.getId()));
 
-            for (String optionId : optionIds) {
+            for (UUID optionId : optionIds) {
                 assertFalse(optionRepository.existsById(optionId));
             }
         }